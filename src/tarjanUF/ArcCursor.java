@@ -0,0 +1,24 @@
+package tarjanUF;
+
+// ArcCursor iterates over the outgoing arcs of one node at a time.
+// A worker owns a single cursor and saves/restores its state on the recursion stack
+// instead of keeping one iterator per level of the DFS.
+public interface ArcCursor {
+
+    // start positions the cursor before the first arc of `v`.
+    void start(int v);
+
+    // node returns the node whose arcs are being iterated.
+    int node();
+
+    boolean hasNext();
+
+    // next returns the target of the next arc.
+    int next();
+
+    // save pushes the state of the cursor on `stack`.
+    void save(IntStack stack);
+
+    // restore pops the state pushed by `save` from `stack` and continues from there.
+    void restore(IntStack stack);
+}
@@ -0,0 +1,230 @@
+package tarjanUF;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Batch decomposes many graphs concurrently in a single JVM, so that JVM start-up and JIT
+// warm-up are paid once for the whole suite instead of once per graph. Usage:
+//      Batch <graph or @list file>... [options]
+// Options:
+//      --threads=<n>       total number of threads shared by all graphs (-1 for all processors).
+//      --output=<dir>      the SCCs of graph `g` are written to <dir>/g.scc (default current directory).
+//      --report=<csv>      one RunReport row per graph.
+// Every option of Main is also accepted and applied to each graph. A graph `g` is run with
+// the init file `g.init` if it exists, else with computed seeds.
+//
+// The graphs are split into lanes: the largest graphs first, every graph goes to the lane with
+// the least work so far (file size is the measure of work). Every lane gets a share of the threads
+// proportional to its work and owns an SccEngine of that size. Hence a big graph gets a lane
+// (and many threads) for itself while small graphs share a lane with few threads.
+// A lane searches its graphs one after the other and loads the next graph while searching
+// the current one. A graph that fails is reported and left out, the lane goes on with the next
+// one and the batch exits with status 1 at the end.
+// The graphs share the JVM, hence the reports have no GC time nor peak heap of their own.
+public class Batch {
+
+    // Lane is a sequence of graphs decomposed by a single engine.
+    private static class Lane {
+        final List<String> graphs = new ArrayList<String>();
+        long work = 0;
+        int threads = 0;
+    }
+
+    public static void main(String[] argv) throws IOException {
+        final List<String> positional = new ArrayList<String>();
+        final Map<String, String> options = Main.readOptions(argv, positional);
+        final List<String> graphs = listGraphs(positional);
+        if (graphs.isEmpty()) {
+            System.err.println("Usage: Batch <graph or @list file>... [options]");
+            System.exit(1);
+        }
+        final int numCores = ConcurrentFastSCC.requiredProcessors(Integer.parseInt(options.getOrDefault("threads", "-1")));
+        final File output = new File(options.getOrDefault("output", "."));
+        output.mkdirs();
+        final long start = System.nanoTime();
+
+        final List<Lane> lanes = plan(graphs, numCores);
+        final List<RunReport> reports = new ArrayList<RunReport>();
+        final AtomicInteger failures = new AtomicInteger(0);
+        final ExecutorService laneExecutor = Executors.newFixedThreadPool(Math.max(1, lanes.size()));
+        final List<Future<List<RunReport>>> futures = new ArrayList<Future<List<RunReport>>>();
+        for (Lane lane: lanes) {
+            System.err.println("Lane with " + lane.threads + " threads: " + lane.graphs);
+            futures.add(laneExecutor.submit(() -> runLane(lane, options, output, failures)));
+        }
+        for (Future<List<RunReport>> future: futures) {
+            try {
+                reports.addAll(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                e.printStackTrace();
+            } catch (ExecutionException e) {
+                // The lane could not even start its engine, none of its graphs was processed.
+                e.getCause().printStackTrace();
+                failures.incrementAndGet();
+            }
+        }
+        laneExecutor.shutdown();
+
+        final long duration = System.nanoTime() - start;
+        System.err.println("Total runtime of batch: " + duration);
+
+        if (options.containsKey("report") && !reports.isEmpty()) {
+            try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(options.get("report"))))) {
+                RunReport.writeCsv(out, reports);
+            }
+        }
+        if (failures.get() > 0) {
+            System.err.println("Graphs or lanes failed: " + failures.get() + ".");
+            System.exit(1);
+        }
+    }
+
+    // listGraphs expands the `@file` arguments into the graphs listed in them, one per line.
+    private static List<String> listGraphs(final List<String> args) throws IOException {
+        final List<String> graphs = new ArrayList<String>();
+        for (String arg: args) {
+            if (arg.startsWith("@")) {
+                try (BufferedReader br = new BufferedReader(new FileReader(arg.substring(1)))) {
+                    for (String line = br.readLine(); line != null; line = br.readLine()) {
+                        if (!line.trim().isEmpty()) {
+                            graphs.add(line.trim());
+                        }
+                    }
+                }
+            } else {
+                graphs.add(arg);
+            }
+        }
+        return graphs;
+    }
+
+    // plan splits `graphs` into lanes and divides `numCores` threads between them.
+    private static List<Lane> plan(final List<String> graphs, final int numCores) {
+        final List<String> sorted = new ArrayList<String>(graphs);
+        final Map<String, Long> sizes = new HashMap<String, Long>();
+        for (String graph: graphs) {
+            sizes.put(graph, Math.max(1, new File(graph).length()));
+        }
+        sorted.sort((a, b) -> Long.compare(sizes.get(b), sizes.get(a)));
+
+        final List<Lane> lanes = new ArrayList<Lane>();
+        for (int i = 0; i < Math.min(numCores, graphs.size()); i++) {
+            lanes.add(new Lane());
+        }
+        long total = 0;
+        for (String graph: sorted) {
+            Lane least = lanes.get(0);
+            for (Lane lane: lanes) {
+                if (lane.work < least.work) {
+                    least = lane;
+                }
+            }
+            least.graphs.add(graph);
+            least.work += sizes.get(graph);
+            total += sizes.get(graph);
+        }
+
+        // Threads proportional to the work, at least one each, exactly `numCores` in all: the
+        // threads of the lanes rounded up to one are taken back from the lanes with the most, the
+        // rest go to the busiest lanes.
+        int assigned = 0;
+        for (Lane lane: lanes) {
+            lane.threads = Math.max(1, (int) (numCores * lane.work / Math.max(1, total)));
+            assigned += lane.threads;
+        }
+        lanes.sort((a, b) -> Long.compare(b.work, a.work));
+        // There are at most `numCores` lanes, one of them has more than one thread until then.
+        while (assigned > numCores) {
+            Lane most = lanes.get(0);
+            for (Lane lane: lanes) {
+                if (lane.threads > most.threads) {
+                    most = lane;
+                }
+            }
+            most.threads--;
+            assigned--;
+        }
+        for (int i = 0; assigned < numCores; i = (i + 1) % lanes.size()) {
+            lanes.get(i).threads++;
+            assigned++;
+        }
+        return lanes;
+    }
+
+    // runLane decomposes the graphs of `lane` one after the other with a single engine.
+    // The next graph is loaded by a separate thread while the current one is processed.
+    // Returns the reports of the graphs processed, those failing are counted in `failures`.
+    private static List<RunReport> runLane(final Lane lane, final Map<String, String> options, final File output,
+                                           final AtomicInteger failures) throws Exception {
+        final List<RunReport> reports = new ArrayList<RunReport>();
+        final List<RunReport> processed = new ArrayList<RunReport>();
+        final ContentionPolicy policy = ContentionPolicy.parse(options.getOrDefault("backoff", "spinYield"));
+        final ExecutorService loader = Executors.newSingleThreadExecutor();
+        try (SccEngine engine = new SccEngine(lane.threads, policy)) {
+            Future<Pair<Graph, List<Integer>>> next = load(loader, lane.graphs.get(0), options, engine, reports);
+            for (int i = 0; i < lane.graphs.size(); i++) {
+                final String graph = lane.graphs.get(i);
+                final Future<Pair<Graph, List<Integer>>> current = next;
+                final RunReport report = reports.get(i);
+                // Start loading the next graph before searching this one.
+                if (i + 1 < lane.graphs.size()) {
+                    next = load(loader, lane.graphs.get(i + 1), options, engine, reports);
+                }
+
+                try {
+                    final Pair<Graph, List<Integer>> loaded = current.get();
+                    final long start = System.nanoTime();
+                    final String name = new File(graph).getName();
+                    final Map<String, String> jobOptions = new HashMap<String, String>(options);
+                    if (options.containsKey("condensation")) {
+                        jobOptions.put("condensation", new File(output, name + ".condensation").getPath());
+                    }
+                    try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(new File(output, name + ".scc"))))) {
+                        Main.process(loaded, engine, jobOptions, report, out);
+                    }
+                    report.phase("process", System.nanoTime() - start);
+                    report.finish();
+                    processed.add(report);
+                } catch (ExecutionException e) {
+                    System.err.println("Graph " + graph + " failed to load:");
+                    e.getCause().printStackTrace();
+                    failures.incrementAndGet();
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Graph " + graph + " failed:");
+                    e.printStackTrace();
+                    failures.incrementAndGet();
+                }
+            }
+        } finally {
+            loader.shutdown();
+        }
+        return processed;
+    }
+
+    // load submits the loading of `graph` to `loader`. The report of the graph is
+    // appended to `reports` right away so that they stay in the order of the lane.
+    // A raw dump is ingested on the threads of `engine`, after the search running there.
+    private static Future<Pair<Graph, List<Integer>>> load(final ExecutorService loader, final String graph,
+                                                           final Map<String, String> options, final SccEngine engine,
+                                                           final List<RunReport> reports) {
+        final RunReport report = new RunReport(graph, engine.getNumWorkers(), false);
+        reports.add(report);
+        final String initFile = new File(graph + ".init").exists() ? graph + ".init" : null;
+        return loader.submit(() -> Main.load(graph, initFile, options.containsKey("raw"), engine, report));
+    }
+}
@@ -0,0 +1,190 @@
+package tarjanUF;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// BenchmarkDriver runs Main on a matrix of graphs x thread counts x option variants with
+// repetitions, each run in a fresh JVM, and summarizes the RunReports of the runs.
+// It replaces the shell script `experiments/benchmark`. Usage:
+//      BenchmarkDriver <graph or directory>... [options]
+// Options:
+//      --threads=1,2,4,8,16,32     thread counts to run with.
+//      --runs=10                   repetitions of every configuration.
+//      --variants=<a>|<b>          option sets passed to Main, e.g. "--backoff=spinOnly|--backoff=spinPark".
+//      --metric=search             phase compared between runs and against the baseline.
+//      --out=<csv>                 where the summary is written (default benchmark.csv).
+//      --logs=<dir>                where the stderr of the runs is kept (default sccs).
+//      --baseline=<csv>            summary of an earlier run to compare with.
+//      --tolerance=0.10            relative slowdown of the median flagged as a regression.
+// A graph `g` is run with the init file `g.init` if it exists, else with computed seeds.
+// Exits with status 1 if a regression was found.
+public class BenchmarkDriver {
+
+    private static final String HEADER = "graph,threads,variant,runs,medianNanos,minNanos,maxNanos";
+
+    public static void main(String[] argv) throws IOException, InterruptedException {
+        final List<String> positional = new ArrayList<String>();
+        final Map<String, String> options = Main.readOptions(argv, positional);
+        final List<String> graphs = listGraphs(positional);
+        final int runs = Integer.parseInt(options.getOrDefault("runs", "10"));
+        final String metric = options.getOrDefault("metric", "search") + "Nanos";
+        final double tolerance = Double.parseDouble(options.getOrDefault("tolerance", "0.10"));
+        final File logs = new File(options.getOrDefault("logs", "sccs"));
+        logs.mkdirs();
+        final List<Integer> threads = new ArrayList<Integer>();
+        for (String t: options.getOrDefault("threads", "1,2,4,8,16,32").split(",")) {
+            threads.add(Integer.parseInt(t.trim()));
+        }
+        final List<String> variants = Arrays.asList(options.getOrDefault("variants", "").split("\\|", -1));
+
+        final File report = File.createTempFile("report", ".csv");
+        report.deleteOnExit();
+        final List<String> summary = new ArrayList<String>();
+        for (String graph: graphs) {
+            final String name = new File(graph).getName();
+            for (int t: threads) {
+                for (String variant: variants) {
+                    final List<Long> values = new ArrayList<Long>();
+                    for (int run = 1; run <= runs; run++) {
+                        System.err.println("Processing " + name + " with " + t + " threads [" + variant + "], run " + run + ".");
+                        final File log = new File(logs, name + ".exec." + run);
+                        final Long value = runOnce(graph, t, variant, report, log, metric);
+                        if (value != null) {
+                            values.add(value);
+                        }
+                    }
+                    if (values.isEmpty()) {
+                        System.err.println("No successful run of " + name + " with " + t + " threads [" + variant + "].");
+                        continue;
+                    }
+                    Collections.sort(values);
+                    summary.add(name + "," + t + "," + variant.replace(",", ";") + "," + values.size() + ","
+                            + values.get(values.size() / 2) + "," + values.get(0) + "," + values.get(values.size() - 1));
+                }
+            }
+        }
+
+        final String out = options.getOrDefault("out", "benchmark.csv");
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(out)))) {
+            writer.println(HEADER);
+            for (String row: summary) {
+                writer.println(row);
+            }
+        }
+        System.err.println("Summary written to " + out + ".");
+
+        if (options.containsKey("baseline")) {
+            final int regressions = compare(summary, readSummary(options.get("baseline")), tolerance);
+            if (regressions > 0) {
+                System.err.println(regressions + " regression(s) against " + options.get("baseline") + ".");
+                System.exit(1);
+            }
+            System.err.println("No regression against " + options.get("baseline") + ".");
+        }
+    }
+
+    // listGraphs expands directories into the graphs (*.txt files) they contain.
+    private static List<String> listGraphs(final List<String> paths) {
+        final List<String> graphs = new ArrayList<String>();
+        for (String path: paths) {
+            final File file = new File(path);
+            if (file.isDirectory()) {
+                final File[] files = file.listFiles((dir, name) -> name.endsWith(".txt"));
+                Arrays.sort(files);
+                for (File f: files) {
+                    graphs.add(f.getPath());
+                }
+            } else {
+                graphs.add(path);
+            }
+        }
+        return graphs;
+    }
+
+    // runOnce runs Main in a new JVM and returns the value of column `metric` of its report.
+    // Returns null if the run failed.
+    private static Long runOnce(final String graph, final int threads, final String variant, final File report,
+                                final File log, final String metric) throws IOException, InterruptedException {
+        final List<String> command = new ArrayList<String>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.add("-ea");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Main.class.getName());
+        command.add(graph);
+        command.add(Integer.toString(threads));
+        if (new File(graph + ".init").exists()) {
+            command.add(graph + ".init");
+        }
+        for (String option: variant.trim().split("\\s+")) {
+            if (!option.isEmpty()) {
+                command.add(option);
+            }
+        }
+        command.add("--report=" + report.getPath());
+
+        report.delete();
+        final Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.appendTo(log))
+                .start();
+        if (process.waitFor() != 0 || !report.exists()) {
+            return null;
+        }
+
+        try (BufferedReader br = new BufferedReader(new FileReader(report))) {
+            final List<String> header = Arrays.asList(br.readLine().split(","));
+            final String[] row = br.readLine().split(",");
+            final int column = header.indexOf(metric);
+            if (column == -1) {
+                throw new IllegalArgumentException("Unknown metric " + metric + ", report has " + header + ".");
+            }
+            return Long.parseLong(row[column]);
+        }
+    }
+
+    // readSummary reads a summary written by an earlier run, keyed by graph, threads and variant.
+    private static Map<String, Long> readSummary(final String filename) throws IOException {
+        final Map<String, Long> medians = new HashMap<String, Long>();
+        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+            br.readLine();
+            for (String line = br.readLine(); line != null; line = br.readLine()) {
+                final String[] row = line.split(",", -1);
+                medians.put(row[0] + "," + row[1] + "," + row[2], Long.parseLong(row[4]));
+            }
+        }
+        return medians;
+    }
+
+    // compare flags every configuration whose median got slower than the baseline by more
+    // than `tolerance`. Returns the number of regressions.
+    private static int compare(final List<String> summary, final Map<String, Long> baseline, final double tolerance) {
+        int regressions = 0;
+        for (String line: summary) {
+            final String[] row = line.split(",", -1);
+            final String key = row[0] + "," + row[1] + "," + row[2];
+            final Long before = baseline.get(key);
+            if (before == null) {
+                continue;
+            }
+            final long now = Long.parseLong(row[4]);
+            if (now > before * (1 + tolerance)) {
+                System.err.println("REGRESSION " + key + ": " + before + " -> " + now
+                        + String.format(" (+%.1f%%)", 100.0 * (now - before) / before));
+                regressions++;
+            }
+        }
+        return regressions;
+    }
+}
@@ -0,0 +1,191 @@
+package tarjanUF;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+
+// Checkpoint saves the progress of a search to a file while the workers keep running, so that
+// a search that died can be resumed. Only dead sets are saved: a dead set is a complete SCC and
+// never changes again, hence it can be read without stopping the workers, while the live part
+// of the union find is in flux and cheap enough to search again.
+// A background thread appends a block to the file every `intervalMillis`:
+//      count, (node, root) x count, count
+// with the nodes that joined a dead set since the previous block (union find ids). The file
+// starts with MAGIC and the number of nodes. A block cut short by a crash is ignored on restore.
+//
+// A block is taken in two passes. The first collects the roots that are dead at that point, the
+// second the nodes whose root is one of them. As a dead root stays dead and its set does not grow
+// any more, the second pass sees every member of the sets of the first one.
+public class Checkpoint {
+
+    private static final int MAGIC = 0x55465343;
+
+    private final String filename;
+    private final long intervalMillis;
+    // recorded has the nodes already saved to the file.
+    private BitSet recorded;
+    // complete is the length of the file up to its last complete block, as read by `restore`.
+    private long complete;
+    private DataOutputStream out;
+    private FileOutputStream file;
+    private Thread thread;
+    private volatile boolean stopped;
+    private long blocks;
+
+    // Constructor.
+    public Checkpoint(final String filename, final long intervalMillis) {
+        this.filename = filename;
+        this.intervalMillis = intervalMillis;
+    }
+
+    // restore reads the dead sets saved in the file into `uf`, which must be freshly reset for a
+    // graph of `n` nodes, the same graph the file was written for. Returns the number of nodes
+    // restored; 0 if there is no file. The following `start` appends to the file, past the last
+    // complete block.
+    // Must not be called while workers are running.
+    public int restore(final UF uf, final int n) throws IOException {
+        this.recorded = new BitSet(n + 1);
+        if (!new File(filename).exists()) {
+            return 0;
+        }
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+            if (in.readInt() != MAGIC || in.readInt() != n) {
+                throw new IOException("Checkpoint " + filename + " was not written for a graph of " + n + " nodes.");
+            }
+            this.complete = 8;
+            final IntStack block = new IntStack();
+            while (true) {
+                block.clear();
+                try {
+                    final int count = in.readInt();
+                    for (int i = 0; i < 2 * count; i++) {
+                        block.push(in.readInt());
+                    }
+                    if (in.readInt() != count) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                for (int i = 0; i < block.size(); i += 2) {
+                    uf.restoreDead(block.get(i), block.get(i + 1));
+                    recorded.set(block.get(i));
+                }
+                restored += block.size() / 2;
+                this.complete += 4L * (block.size() + 2);
+            }
+        }
+        System.err.println("Restored " + restored + " nodes in dead sets from " + filename + ".");
+        return restored;
+    }
+
+    // start launches the thread saving the dead sets of `uf`, a union find for `n` nodes.
+    // The file is appended to if `restore` was called before, else it is created anew. A block cut
+    // short is cut off first, a restore would stop there and miss the blocks written after it.
+    public void start(final UF uf, final int n) throws IOException {
+        final boolean append = this.recorded != null && new File(filename).exists();
+        if (this.recorded == null) {
+            this.recorded = new BitSet(n + 1);
+        }
+        this.file = new FileOutputStream(filename, append);
+        if (append) {
+            file.getChannel().truncate(this.complete);
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(file));
+        if (!append) {
+            out.writeInt(MAGIC);
+            out.writeInt(n);
+            out.flush();
+        }
+        this.stopped = false;
+        this.blocks = 0;
+        this.thread = new Thread(() -> {
+            while (!stopped) {
+                try {
+                    Thread.sleep(intervalMillis);
+                } catch (InterruptedException e) {
+                    // Woken up by stop.
+                    continue;
+                }
+                try {
+                    save(uf, n);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return;
+                }
+            }
+        }, "scc-checkpoint");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // stop waits for the thread to finish the block it is saving and closes the file.
+    // The last block is not taken, the search finishing right after.
+    public void stop() throws IOException {
+        stopped = true;
+        thread.interrupt();
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        out.close();
+        System.err.println("Checkpoint blocks written to " + filename + ": " + blocks);
+    }
+
+    // save appends a block with the nodes of the sets that died since the previous one.
+    private void save(final UF uf, final int n) throws IOException {
+        final long start = System.nanoTime();
+
+        // First pass: the roots dead now.
+        final BitSet deadRoots = new BitSet(n + 1);
+        boolean any = false;
+        for (int a = recorded.nextClearBit(1); a <= n; a = recorded.nextClearBit(a + 1)) {
+            if (uf.isDeadRoot(a)) {
+                deadRoots.set(a);
+                any = true;
+            }
+        }
+        if (!any) {
+            return;
+        }
+        // Second pass: their members.
+        final IntStack block = new IntStack();
+        for (int a = recorded.nextClearBit(1); a <= n; a = recorded.nextClearBit(a + 1)) {
+            final int root = uf.find(a);
+            if (deadRoots.get(root)) {
+                block.push(a);
+                block.push(root);
+            }
+        }
+
+        final int count = block.size() / 2;
+        out.writeInt(count);
+        for (int i = 0; i < block.size(); i += 2) {
+            out.writeInt(block.get(i));
+            out.writeInt(block.get(i + 1));
+            recorded.set(block.get(i));
+        }
+        out.writeInt(count);
+        out.flush();
+        file.getFD().sync();
+        blocks++;
+
+        final long duration = System.nanoTime() - start;
+        System.err.println("Runtime for checkpoint of " + count + " nodes: " + duration);
+    }
+}
@@ -0,0 +1,270 @@
+package tarjanUF;
+
+import java.util.Arrays;
+import java.util.List;
+
+// CompressedGraph stores the adjacency lists of a graph in a single byte array.
+// State graphs have a strong locality (in particular after renumbering), hence
+// the arcs of a node are sorted and stored as gaps in the WebGraph style:
+//      degree, zigzag(first - v), second - first, third - second, ...
+// every number being a variable length integer of 7 bits per byte.
+// This takes a few bytes per arc instead of a boxed Integer in an ArrayList.
+public class CompressedGraph implements Digraph {
+
+    // data[offsets[v]..offsets[v + 1]) encodes the arcs of node `v`.
+    private final byte[] data;
+    private final int[] offsets;
+    private final long numArcs;
+
+    private CompressedGraph(final byte[] data, final int[] offsets, final long numArcs) {
+        this.data = data;
+        this.offsets = offsets;
+        this.numArcs = numArcs;
+    }
+
+    // compress encodes `graph` in parallel on the threads of `engine`.
+    public static CompressedGraph compress(final Graph graph, final SccEngine engine) {
+        final long start = System.nanoTime();
+
+        final int n = graph.N();
+        final int workers = engine.getNumWorkers();
+        final ByteSink[] sinks = new ByteSink[workers];
+        final long[] arcs = new long[workers];
+        final int[] offsets = new int[n + 1];
+
+        // Every worker encodes its own range with offsets relative to its sink.
+        engine.forEachRange(n, (range, from, to) -> {
+            final ByteSink sink = new ByteSink();
+            int[] scratch = new int[16];
+            long count = 0;
+            for (int v = from; v < to; v++) {
+                final List<Integer> list = graph.get(v).getArcs();
+                if (scratch.length < list.size()) {
+                    scratch = new int[2 * list.size()];
+                }
+                int degree = 0;
+                for (int w: list) {
+                    scratch[degree++] = w;
+                }
+                offsets[v] = sink.size();
+                encode(v, scratch, degree, sink);
+                count += degree;
+            }
+            sinks[range] = sink;
+            arcs[range] = count;
+        });
+
+        // Concatenate the sinks and make the offsets absolute.
+        final long[] bases = new long[workers + 1];
+        long numArcs = 0;
+        for (int i = 0; i < workers; i++) {
+            bases[i + 1] = bases[i] + (sinks[i] == null ? 0 : sinks[i].size());
+            numArcs += arcs[i];
+        }
+        if (bases[workers] > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Graph too large to compress: " + bases[workers] + " bytes.");
+        }
+        final byte[] data = new byte[(int) bases[workers]];
+        engine.forEachRange(n, (range, from, to) -> {
+            final int base = (int) bases[range];
+            System.arraycopy(sinks[range].bytes, 0, data, base, sinks[range].size());
+            for (int v = from; v < to; v++) {
+                offsets[v] += base;
+            }
+        });
+        offsets[n] = data.length;
+
+        final CompressedGraph result = new CompressedGraph(data, offsets, numArcs);
+        final long duration = System.nanoTime() - start;
+        System.err.println("Compressed " + n + " nodes and " + numArcs + " arcs into " + result.bytes()
+                + " bytes (" + String.format("%.2f", result.bytes() / (double) Math.max(1, numArcs)) + " bytes per arc).");
+        System.err.println("Runtime for compression: " + duration);
+        return result;
+    }
+
+    // encode appends the arcs arcs[0..degree) of node `v` to `sink`. `arcs` gets sorted.
+    public static void encode(final int v, final int[] arcs, final int degree, final ByteSink sink) {
+        Arrays.sort(arcs, 0, degree);
+        sink.writeVarint(degree);
+        for (int i = 0; i < degree; i++) {
+            if (i == 0) {
+                final int gap = arcs[0] - v;
+                // Zigzag encoding: small negative gaps become small positive numbers.
+                sink.writeVarint((gap << 1) ^ (gap >> 31));
+            } else {
+                sink.writeVarint(arcs[i] - arcs[i - 1]);
+            }
+        }
+    }
+
+    // bytes returns the memory taken by the adjacency data and the offsets.
+    public long bytes() {
+        return data.length + 4L * offsets.length;
+    }
+
+    public long numArcs() {
+        return numArcs;
+    }
+
+    @Override
+    public int N() {
+        return offsets.length - 1;
+    }
+
+    @Override
+    public int degree(final int v) {
+        return readVarint(offsets[v]);
+    }
+
+    @Override
+    public ArcCursor cursor(final int rotation) {
+        return new Cursor(rotation);
+    }
+
+    // readVarint decodes the variable length integer starting at `pos`.
+    private int readVarint(int pos) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[pos++];
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    // varintLength returns the number of bytes taken by `value` as a variable length integer.
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value & ~0x7f) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    // Cursor decodes the arcs of a node sequentially. As with Graph, the arcs are visited
+    // starting from index `rotation` % degree and wrapping around to the first one.
+    private class Cursor implements ArcCursor {
+        private final int rotation;
+        private int v;
+        private int degree;
+        // first is the position of the first arc of `v` in `data`.
+        private int first;
+        // Number of arcs returned since `start`.
+        private int index;
+        // Index in the sorted list and position in `data` of the next arc to decode.
+        private int arcIndex;
+        private int pos;
+        // prev is the last arc decoded, the gaps are relative to it.
+        private int prev;
+
+        Cursor(final int rotation) {
+            this.rotation = rotation;
+        }
+
+        // seek sets up `v`, `degree` and `first` for node `node`.
+        private void seek(final int node) {
+            this.v = node;
+            this.degree = readVarint(offsets[node]);
+            this.first = offsets[node] + varintLength(this.degree);
+        }
+
+        @Override
+        public void start(final int node) {
+            seek(node);
+            this.index = 0;
+            this.arcIndex = 0;
+            this.pos = this.first;
+            this.prev = node;
+            // Skip to the arc the rotation starts with.
+            if (this.degree > 0) {
+                final int skip = this.rotation % this.degree;
+                for (int i = 0; i < skip; i++) {
+                    decode();
+                }
+            }
+        }
+
+        @Override
+        public int node() {
+            return this.v;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.index < this.degree;
+        }
+
+        @Override
+        public int next() {
+            if (this.arcIndex == this.degree) {
+                // Wrap around to the first arc.
+                this.arcIndex = 0;
+                this.pos = this.first;
+                this.prev = this.v;
+            }
+            this.index++;
+            return decode();
+        }
+
+        // decode reads the arc at `pos` and advances to the next one.
+        private int decode() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[this.pos++];
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            if (this.arcIndex == 0) {
+                this.prev = this.v + ((value >>> 1) ^ -(value & 1));
+            } else {
+                this.prev += value;
+            }
+            this.arcIndex++;
+            return this.prev;
+        }
+
+        @Override
+        public void save(final IntStack stack) {
+            stack.push(this.v);
+            stack.push(this.index);
+            stack.push(this.arcIndex);
+            stack.push(this.pos);
+            stack.push(this.prev);
+        }
+
+        @Override
+        public void restore(final IntStack stack) {
+            this.prev = stack.pop();
+            this.pos = stack.pop();
+            this.arcIndex = stack.pop();
+            this.index = stack.pop();
+            seek(stack.pop());
+        }
+    }
+
+    // ByteSink is a growable byte array the encoder writes to.
+    public static class ByteSink {
+        private byte[] bytes = new byte[1024];
+        private int size = 0;
+
+        public int size() {
+            return size;
+        }
+
+        public void writeVarint(int value) {
+            if (size + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+            }
+            while ((value & ~0x7f) != 0) {
+                bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+    }
+}
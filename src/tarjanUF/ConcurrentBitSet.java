@@ -34,14 +34,20 @@
 
 package tarjanUF;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.BitSet;
-import java.util.concurrent.atomic.AtomicLongArray;
 
 public class ConcurrentBitSet {
     // We use an array of long. So number of bit per unit is 64.
     private static final int BITS_PER_UNIT = 64;
 
-    private volatile AtomicLongArray units;
+    // UNITS gives atomic access to the elements of `units`.
+    // Its getAndBitwiseOr/getAndBitwiseAnd are single atomic instructions on most platforms
+    // and hence do not need a retry loop like compareAndSet does.
+    private static final VarHandle UNITS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] units;
 
     // Some constructors.
     public ConcurrentBitSet() {
@@ -49,7 +55,7 @@ public class ConcurrentBitSet {
     }
 
     public ConcurrentBitSet(int bitCapacity) {
-        units = new AtomicLongArray(1 + (bitCapacity - 1) / BITS_PER_UNIT);
+        units = new long[1 + (bitCapacity - 1) / BITS_PER_UNIT];
     }
 
     public ConcurrentBitSet(BitSet bitSet) {
@@ -59,8 +65,9 @@ public class ConcurrentBitSet {
         }
     }
 
-    public ConcurrentBitSet(AtomicLongArray array) {
-        units = array;
+    // unit returns the value of `units[i]` with volatile semantics.
+    private long unit(int i) {
+        return (long) UNITS.getVolatile(units, i);
     }
 
     // set changes the value at `bit` in the bitset to be `value`.
@@ -83,11 +90,7 @@ public class ConcurrentBitSet {
         // A bitmask of the bit in the unit.
         final long mask = 1L << index;
 
-        // Run until the `unit`s value is it's old bitwised or with mask
-        long old = units.get(unit);
-        while (!units.compareAndSet(unit, old, old | mask)) {
-            old = units.get(unit);
-        }
+        UNITS.getAndBitwiseOr(units, unit, mask);
     }
 
     // compareAndSet atomically sets the value of `bit` to be `update` given
@@ -100,23 +103,20 @@ public class ConcurrentBitSet {
         // A bitmask of the bit in the unit.
         final long mask = 1L << index;
 
-        long old = units.get(unit);
-        // If we need to make `bit` to be 1 then we should do a bitwise or
-        // else we should do a bitwise and with the negation of mask.
-        long upd = (update) ? (old | mask) : (old & ~mask);
-        // This is used to check if curent value is same as the old one.
-        boolean cur = 0L != (old & mask);
-        // Interate until new value at `bit` is `update` given that update operation
-        // is successful.
-        while (cur == expect && !units.compareAndSet(unit, old, upd)) {
-            old = units.get(unit);
-            upd = (update) ? (old | mask) : (old & ~mask);
-            cur = 0L != (old & mask);
+        if (expect == update) {
+            return get(bit) == expect;
         }
-        return cur == expect;
+        // The previous value of the unit tells whether this call flipped the bit.
+        final long old;
+        if (update) {
+            old = (long) UNITS.getAndBitwiseOr(units, unit, mask);
+        } else {
+            old = (long) UNITS.getAndBitwiseAnd(units, unit, ~mask);
+        }
+        return (0L != (old & mask)) == expect;
     }
 
-    // clear changes the value at `bit` to be 1.
+    // clear changes the value at `bit` to be 0.
     public void clear(int bit) {
         // The unit to which this bit belongs.
         final int unit = bit / BITS_PER_UNIT;
@@ -125,17 +125,13 @@ public class ConcurrentBitSet {
         // A bitmask of the bit in the unit.
         final long mask = 1L << index;
 
-        // Iterate until the new value is cleared.
-        long old = units.get(unit);
-        while (!units.compareAndSet(unit, old, old & ~mask)) {
-            old = units.get(unit);
-        }
+        UNITS.getAndBitwiseAnd(units, unit, ~mask);
     }
 
     // clear is used to make the bitset to be 0s.
     public void clear() {
-        for (int i = 0; i < units.length(); i++) {
-            units.set(i, 0);
+        for (int i = 0; i < units.length; i++) {
+            UNITS.setVolatile(units, i, 0L);
         }
     }
 
@@ -148,7 +144,7 @@ public class ConcurrentBitSet {
         // A bitmask of the bit in the unit.
         final long mask = 1L << index;
 
-        return 0 != (units.get(unit) & mask);
+        return 0 != (unit(unit) & mask);
     }
 
     // and changes the value of this bitset to be
@@ -158,13 +154,10 @@ public class ConcurrentBitSet {
             return;
         }
 
-        assert units.length() == with.units.length();
-        final int len = units.length();
+        assert units.length == with.units.length;
+        final int len = units.length;
         for (int i = 0; i < len; i++) {
-            long old = units.get(i);
-            while (!units.compareAndSet(i, old, old & with.units.get(i))) {
-                old = units.get(i);
-            }
+            UNITS.getAndBitwiseAnd(units, i, with.unit(i));
         }
     }
 
@@ -175,64 +168,50 @@ public class ConcurrentBitSet {
             return;
         }
 
-        assert units.length() == with.units.length();
-        final int len = units.length();
-        for (int i = 0; i < len; i++) {
-            long old = units.get(i);
-            while (!units.compareAndSet(i, old, old | with.units.get(i))) {
-                old = units.get(i);
-            }
-        }
-    }
-
-    // getOr returns a new instance with value being bitwise or of A and B.
-    // As static makes no changes to any instance.
-    public static ConcurrentBitSet getOr(ConcurrentBitSet A, ConcurrentBitSet B) {
-        assert A.units.length() == B.units.length();
-        final int len = A.units.length();
-        final AtomicLongArray C = new AtomicLongArray(len);
-
+        assert units.length == with.units.length;
+        final int len = units.length;
         for (int i = 0; i < len; i++) {
-            C.set(i, A.units.get(i) | B.units.get(i));
+            UNITS.getAndBitwiseOr(units, i, with.unit(i));
         }
-
-        return new ConcurrentBitSet(C);
     }
 
-    // getAnd returns a new instance with value being bitwise and of A and B.
-    // As static makes no changes to any instance.
-    public static ConcurrentBitSet getAnd(ConcurrentBitSet A, ConcurrentBitSet B) {
-        assert A.units.length() == B.units.length();
-        final int len = A.units.length();
-        final AtomicLongArray C = new AtomicLongArray(len);
-
+    // orMissing sets the bits of `with` missing from this bitset. Unlike `or` it only writes to the
+    // units which lack some bit, so that merging a set into one holding it already (the common case
+    // when every worker unites the same sets) reads the shared units without taking their cache lines.
+    // Returns true if some bit was missing.
+    public boolean orMissing(ConcurrentBitSet with) {
+        assert units.length == with.units.length;
+        boolean changed = false;
+        final int len = units.length;
         for (int i = 0; i < len; i++) {
-            C.set(i, A.units.get(i) & B.units.get(i));
+            final long missing = with.unit(i) & ~unit(i);
+            if (missing != 0L) {
+                UNITS.getAndBitwiseOr(units, i, missing);
+                changed = true;
+            }
         }
-
-        return new ConcurrentBitSet(C);
+        return changed;
     }
 
-    // equals checks if the two bitsets A and B are equal.
-    public static boolean equals(ConcurrentBitSet A, ConcurrentBitSet B) {
-        assert A.units.length() == B.units.length();
-        final int len = A.units.length();
-
+    // isSubsetOf returns true if every bit of this bitset is set in `of`.
+    // Word by word, without allocating a temporary bitset.
+    public boolean isSubsetOf(ConcurrentBitSet of) {
+        assert units.length == of.units.length;
+        final int len = units.length;
         for (int i = 0; i < len; i++) {
-            if (A.units.get(i) != B.units.get(i)) {
+            if ((unit(i) & ~of.unit(i)) != 0L) {
                 return false;
             }
         }
-
         return true;
     }
 
     // isEmpty checks if the bitset is all zeros or not.
     public boolean isEmpty() {
-        final int len = this.units.length();
+        final int len = this.units.length;
 
         for (int i = 0; i < len; i++) {
-            if (this.units.get(i) != 0L) {
+            if (this.unit(i) != 0L) {
                 return false;
             }
         }
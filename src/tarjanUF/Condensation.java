@@ -0,0 +1,258 @@
+package tarjanUF;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Condensation is the DAG obtained by contracting every SCC of a graph into a single node,
+// along with a topological order of it. Components are numbered [0..C - 1].
+public class Condensation {
+
+    // Frontiers smaller than this are processed by the calling thread alone.
+    private static final int PARALLEL_FRONTIER = 1024;
+
+    // component[v] is the component of node `v`.
+    private final int[] component;
+    // representative[c] is the union find root (a node) of component `c`.
+    private final int[] representative;
+    // The successors of component `c` are targets[offsets[c]..offsets[c + 1]),
+    // sorted and without duplicates.
+    private final int[] offsets;
+    private final int[] targets;
+    // order lists the components such that every arc goes from left to right.
+    private final int[] order;
+
+    private Condensation(final int[] component, final int[] representative,
+                         final int[] offsets, final int[] targets, final int[] order) {
+        this.component = component;
+        this.representative = representative;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.order = order;
+    }
+
+    // build computes the condensation of `graph` from the `labels` returned by SccEngine.search,
+    // i.e., directly from the union find roots, in parallel on the threads of `engine`.
+    public static Condensation build(final Digraph graph, final int[] labels, final SccEngine engine) {
+        final long start = System.nanoTime();
+
+        final int n = graph.N();
+        final int workers = engine.getNumWorkers();
+
+        // Number the roots in increasing order: count per range, then prefix sums.
+        final int[] counts = new int[workers + 1];
+        engine.forEachRange(n, (range, from, to) -> {
+            int count = 0;
+            for (int v = from; v < to; v++) {
+                if (labels[v] == v) {
+                    count++;
+                }
+            }
+            counts[range + 1] = count;
+        });
+        for (int i = 0; i < workers; i++) {
+            counts[i + 1] += counts[i];
+        }
+        final int numComponents = counts[workers];
+        final int[] representative = new int[numComponents];
+        final int[] rootIndex = new int[n];
+        engine.forEachRange(n, (range, from, to) -> {
+            int c = counts[range];
+            for (int v = from; v < to; v++) {
+                if (labels[v] == v) {
+                    representative[c] = v;
+                    rootIndex[v] = c++;
+                }
+            }
+        });
+        final int[] component = new int[n];
+        engine.forEachRange(n, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                component[v] = rootIndex[labels[v]];
+            }
+        });
+
+        // Collect the arcs between different components as (source << 32 | target),
+        // dropping the duplicates of a node right away.
+        final long[][] ranges = new long[workers][];
+        final int[] sizes = new int[workers];
+        engine.forEachRange(n, (range, from, to) -> {
+            final ArcCursor cursor = graph.cursor(0);
+            long[] local = new long[16];
+            int size = 0;
+            for (int v = from; v < to; v++) {
+                final long c = component[v];
+                final int first = size;
+                cursor.start(v);
+                while (cursor.hasNext()) {
+                    final int d = component[cursor.next()];
+                    if (d != c) {
+                        if (size == local.length) {
+                            local = Arrays.copyOf(local, 2 * local.length);
+                        }
+                        local[size++] = (c << 32) | d;
+                    }
+                }
+                Arrays.sort(local, first, size);
+                size = unique(local, first, size);
+            }
+            ranges[range] = local;
+            sizes[range] = size;
+        });
+        int total = 0;
+        for (int size: sizes) {
+            total += size;
+        }
+        long[] arcs = new long[total];
+        for (int i = 0, k = 0; i < workers; i++) {
+            if (ranges[i] != null) {
+                System.arraycopy(ranges[i], 0, arcs, k, sizes[i]);
+                k += sizes[i];
+            }
+        }
+        Arrays.parallelSort(arcs);
+        final int numArcs = unique(arcs, 0, arcs.length);
+
+        // Compressed sparse rows.
+        final int[] offsets = new int[numComponents + 1];
+        final int[] targets = new int[numArcs];
+        for (int i = 0; i < numArcs; i++) {
+            offsets[(int) (arcs[i] >>> 32) + 1]++;
+            targets[i] = (int) arcs[i];
+        }
+        arcs = null;
+        for (int c = 0; c < numComponents; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+
+        final int[] order = topologicalOrder(numComponents, offsets, targets, engine);
+
+        final long duration = System.nanoTime() - start;
+        System.err.println("Condensation: " + numComponents + " components and " + numArcs + " arcs.");
+        System.err.println("Runtime for condensation: " + duration);
+        return new Condensation(component, representative, offsets, targets, order);
+    }
+
+    // unique removes the duplicates in the sorted a[from..to) and returns the new end.
+    private static int unique(final long[] a, final int from, final int to) {
+        int end = from;
+        for (int i = from; i < to; i++) {
+            if (end == from || a[end - 1] != a[i]) {
+                a[end++] = a[i];
+            }
+        }
+        return end;
+    }
+
+    // topologicalOrder runs Kahn's algorithm level by level, the levels in parallel.
+    private static int[] topologicalOrder(final int numComponents, final int[] offsets,
+                                          final int[] targets, final SccEngine engine) {
+        final AtomicIntegerArray inDegree = new AtomicIntegerArray(numComponents);
+        engine.forEachRange(targets.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                inDegree.incrementAndGet(targets[i]);
+            }
+        });
+
+        final int[] order = new int[numComponents];
+        int size = 0;
+        for (int c = 0; c < numComponents; c++) {
+            if (inDegree.get(c) == 0) {
+                order[size++] = c;
+            }
+        }
+        // order[head..tail) is the current level.
+        int head = 0;
+        final int workers = engine.getNumWorkers();
+        while (head < size) {
+            final int tail = size;
+            final int level = tail - head;
+            final IntStack[] next;
+            if (level < PARALLEL_FRONTIER) {
+                next = new IntStack[] { release(order, head, tail, offsets, targets, inDegree) };
+            } else {
+                final int base = head;
+                final IntStack[] ranges = new IntStack[workers];
+                engine.forEachRange(level, (range, from, to) -> {
+                    ranges[range] = release(order, base + from, base + to, offsets, targets, inDegree);
+                });
+                next = ranges;
+            }
+            for (IntStack local: next) {
+                for (int i = 0; local != null && i < local.size(); i++) {
+                    order[size++] = local.get(i);
+                }
+            }
+            head = tail;
+        }
+        assert size == numComponents;
+        return order;
+    }
+
+    // release removes the components order[from..to) from the DAG and returns
+    // the successors whose last incoming arc was removed.
+    private static IntStack release(final int[] order, final int from, final int to, final int[] offsets,
+                                    final int[] targets, final AtomicIntegerArray inDegree) {
+        final IntStack local = new IntStack();
+        for (int i = from; i < to; i++) {
+            final int c = order[i];
+            for (int j = offsets[c]; j < offsets[c + 1]; j++) {
+                if (inDegree.decrementAndGet(targets[j]) == 0) {
+                    local.push(targets[j]);
+                }
+            }
+        }
+        return local;
+    }
+
+    public int numComponents() {
+        return representative.length;
+    }
+
+    public int component(final int v) {
+        return component[v];
+    }
+
+    public int representative(final int c) {
+        return representative[c];
+    }
+
+    // successors returns the first and one past the last index of the successors of `c` in `targets`.
+    public int successorsBegin(final int c) {
+        return offsets[c];
+    }
+
+    public int successorsEnd(final int c) {
+        return offsets[c + 1];
+    }
+
+    public int target(final int i) {
+        return targets[i];
+    }
+
+    // order returns the `i`th component in topological order.
+    public int order(final int i) {
+        return order[i];
+    }
+
+    // write outputs the condensation: a line with the number of components and arcs,
+    // then a line per component in topological order with the component, its representative
+    // (as given by `original`, e.g., its id before renumbering) and its successors.
+    public void write(final PrintWriter out, final IntToLongFunction original) {
+        out.print(numComponents());
+        out.print(' ');
+        out.println(targets.length);
+        for (int c: order) {
+            out.print(c);
+            out.print(' ');
+            out.print(original.applyAsLong(representative[c]));
+            for (int j = offsets[c]; j < offsets[c + 1]; j++) {
+                out.print(' ');
+                out.print(targets[j]);
+            }
+            out.println();
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,124 @@
+package tarjanUF;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public class ContentionPolicy {
+
+    // Mode decides what a worker does while it waits for a node locked by another worker.
+    // It can take the following values:
+    // 1. spinOnly:
+    //      Retry immediately with a single spin-wait hint in between.
+    // 2. spinBackoff:
+    //      Spin for an exponentially growing (but bounded) number of spin-wait hints.
+    // 3. spinYield:
+    //      Like spinBackoff but gives up the processor once `threshold` rounds have failed.
+    // 4. spinPark:
+    //      Like spinBackoff but parks the thread for `parkNanos` once `threshold` rounds have failed.
+    // The last two help on oversubscribed/hyperthreaded machines where the worker holding
+    // the lock might be waiting for the processor the spinner is burning.
+    public enum Mode {
+        spinOnly, spinBackoff, spinYield, spinPark;
+    };
+
+    public static final int DEFAULT_MAX_SHIFT = 8;
+    public static final int DEFAULT_THRESHOLD = 12;
+    public static final long DEFAULT_PARK_NANOS = 1000L;
+
+    private final Mode mode;
+    // A round spins for at most 2^maxShift spin-wait hints.
+    private final int maxShift;
+    // Number of rounds after which spinYield/spinPark stop spinning.
+    private final int threshold;
+    private final long parkNanos;
+    // contended counts the number of rounds spent waiting, over all workers.
+    private final LongAdder contended;
+
+    // Constructors.
+    public ContentionPolicy() {
+        this(Mode.spinYield);
+    }
+
+    public ContentionPolicy(final Mode mode) {
+        this(mode, DEFAULT_MAX_SHIFT, DEFAULT_THRESHOLD, DEFAULT_PARK_NANOS);
+    }
+
+    public ContentionPolicy(final Mode mode, final int maxShift, final int threshold, final long parkNanos) {
+        assert maxShift >= 0 && maxShift < 31;
+        this.mode = mode;
+        this.maxShift = maxShift;
+        this.threshold = threshold;
+        this.parkNanos = parkNanos;
+        this.contended = new LongAdder();
+    }
+
+    // parse creates a policy with default parameters from the name of a Mode.
+    public static ContentionPolicy parse(final String name) {
+        return new ContentionPolicy(Mode.valueOf(name));
+    }
+
+    // copy returns a policy with the same parameters but a counter of its own.
+    public ContentionPolicy copy() {
+        return new ContentionPolicy(mode, maxShift, threshold, parkNanos);
+    }
+
+    public Mode getMode() {
+        return this.mode;
+    }
+
+    // pause is called by a worker whose attempt number `round` (starting from 0) failed
+    // because some other worker holds a lock. Returns the number of the next round.
+    // Usage:
+    //      int round = 0;
+    //      while (!tryLock()) {
+    //          round = policy.pause(round);
+    //      }
+    public int pause(final int round) {
+        contended.increment();
+        switch (mode) {
+            case spinOnly:
+                Thread.onSpinWait();
+                break;
+            case spinBackoff:
+                spin(round);
+                break;
+            case spinYield:
+                if (round < threshold) {
+                    spin(round);
+                } else {
+                    Thread.yield();
+                }
+                break;
+            case spinPark:
+                if (round < threshold) {
+                    spin(round);
+                } else {
+                    LockSupport.parkNanos(parkNanos);
+                }
+                break;
+        }
+        return round + 1;
+    }
+
+    // spin issues 2^min(round, maxShift) spin-wait hints.
+    private void spin(final int round) {
+        final int spins = 1 << Math.min(round, maxShift);
+        for (int i = 0; i < spins; i++) {
+            Thread.onSpinWait();
+        }
+    }
+
+    // getContended returns the number of rounds spent waiting since the last reset.
+    public long getContended() {
+        return contended.sum();
+    }
+
+    public void resetContended() {
+        contended.reset();
+    }
+
+    @Override
+    public String toString() {
+        return mode.name();
+    }
+}
@@ -0,0 +1,17 @@
+package tarjanUF;
+
+// Digraph is the read only view of a directed graph consumed by the SCC workers.
+// Nodes are identified by the integers [0..N() - 1].
+public interface Digraph {
+
+    // N returns the number of nodes in the graph.
+    int N();
+
+    // degree returns the number of outgoing arcs of `v`.
+    int degree(int v);
+
+    // cursor returns a new cursor over the arcs of this graph.
+    // The arcs of every node are visited starting from the arc at index `rotation` % degree
+    // so that different workers explore the successors of a node in different orders.
+    ArcCursor cursor(int rotation);
+}
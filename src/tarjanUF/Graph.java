@@ -1,16 +1,20 @@
 package tarjanUF;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
-public class Graph {
+public class Graph implements Digraph {
 
     // A HashMap is required to access the GraphNode object given the unique id.
     // This Map is precisely the set of nodes in the graph.
     private final Map<Integer, GraphNode> nodePtrTable;
     // Name associated with the graph.
     private final String name;
+    // stateIds[v] is the id of node `v` in the state space dump it was read from (see Ingest),
+    // null if the graph was read with its node ids.
+    private long[] stateIds;
 
     // Constructors:
     public Graph() {
@@ -29,6 +33,14 @@ public class Graph {
         return Optional.ofNullable(name);
     }
 
+    public void setStateIds(final long[] stateIds) {
+        this.stateIds = stateIds;
+    }
+
+    public long[] getStateIds() {
+        return this.stateIds;
+    }
+
     // get returns a reference to node with node.id == id.
     public GraphNode get(final int id) {
         return this.nodePtrTable.get(id);
@@ -54,8 +66,76 @@ public class Graph {
     }
 
     // N returns the number of nodes currently present in the graph.
-    public Integer N() {
+    @Override
+    public int N() {
         return nodePtrTable.size();
     }
 
+    // numArcs returns the number of arcs in the graph.
+    public long numArcs() {
+        long count = 0;
+        for (GraphNode node: this.nodePtrTable.values()) {
+            count += node.getArcs().size();
+        }
+        return count;
+    }
+
+    @Override
+    public int degree(int v) {
+        return this.nodePtrTable.get(v).getArcs().size();
+    }
+
+    @Override
+    public ArcCursor cursor(int rotation) {
+        return new Cursor(rotation);
+    }
+
+    // Cursor iterates over the adjacency list of a GraphNode. The arc at index `ei`
+    // of the iteration is the arc at index (ei + rotation) % degree of the list.
+    private class Cursor implements ArcCursor {
+        private final int rotation;
+        private int v;
+        private List<Integer> arcs;
+        private int ei;
+
+        Cursor(int rotation) {
+            this.rotation = rotation;
+        }
+
+        @Override
+        public void start(int v) {
+            this.v = v;
+            this.arcs = get(v).getArcs();
+            this.ei = 0;
+        }
+
+        @Override
+        public int node() {
+            return this.v;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.ei < this.arcs.size();
+        }
+
+        @Override
+        public int next() {
+            return this.arcs.get((this.ei++ + this.rotation) % this.arcs.size());
+        }
+
+        @Override
+        public void save(IntStack stack) {
+            stack.push(this.v);
+            stack.push(this.ei);
+        }
+
+        @Override
+        public void restore(IntStack stack) {
+            final int ei = stack.pop();
+            this.start(stack.pop());
+            this.ei = ei;
+        }
+    }
+
 }
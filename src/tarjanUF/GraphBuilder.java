@@ -0,0 +1,158 @@
+package tarjanUF;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// GraphBuilder collects the arcs of a graph from many threads at once, e.g., the state
+// generators of a model checker, without a lock per arc:
+// - every thread appends to a Producer of its own, a plain buffer of (source, target) pairs;
+//   `addArc` uses the producer of the calling thread, `producer` hands out one explicitly,
+// - `freeze` then builds the Graph the workers search in parallel on the threads of an engine:
+//   the arcs of all the producers are sorted by source and cut into adjacency lists.
+// Nodes are identified by the integers [0..N() - 1], N being the number given to the
+// constructor or one more than the largest node added, whichever is larger.
+// The builder must not be used any more once frozen.
+public class GraphBuilder {
+
+    // Producer is a buffer of arcs to be used by a single thread at a time.
+    public static final class Producer {
+        // arcs holds the arcs as pairs of ints, source first. Dropped by `freeze` once copied.
+        private IntStack arcs;
+        private int maxNode;
+
+        private Producer() {
+            this.arcs = new IntStack(1024);
+            this.maxNode = -1;
+        }
+
+        // addArc adds an arc from `source` to `target`.
+        public void addArc(final int source, final int target) {
+            assert source >= 0 && target >= 0 && arcs != null;
+            arcs.push(source);
+            arcs.push(target);
+            maxNode = Math.max(maxNode, Math.max(source, target));
+        }
+
+        // addNode makes sure that `v` is in the graph, even if it has no arcs.
+        public void addNode(final int v) {
+            assert v >= 0;
+            maxNode = Math.max(maxNode, v);
+        }
+
+        public int numArcs() {
+            return arcs.size() / 2;
+        }
+    }
+
+    private final int numNodes;
+    // producers holds every producer handed out, in no particular order.
+    private final ConcurrentLinkedQueue<Producer> producers;
+    private final ThreadLocal<Producer> local;
+    private volatile boolean frozen;
+
+    // Constructors.
+    public GraphBuilder() {
+        this(0);
+    }
+
+    // numNodes is the number of nodes of the graph if known, the nodes without arcs included.
+    public GraphBuilder(final int numNodes) {
+        this.numNodes = numNodes;
+        this.producers = new ConcurrentLinkedQueue<Producer>();
+        this.local = ThreadLocal.withInitial(this::producer);
+    }
+
+    // producer returns a new buffer of arcs for the calling thread.
+    public Producer producer() {
+        assert !frozen;
+        final Producer producer = new Producer();
+        producers.add(producer);
+        return producer;
+    }
+
+    // addArc adds an arc from `source` to `target` to the producer of the calling thread.
+    public void addArc(final int source, final int target) {
+        local.get().addArc(source, target);
+    }
+
+    // addNode makes sure that `v` is in the graph, with the producer of the calling thread.
+    public void addNode(final int v) {
+        local.get().addNode(v);
+    }
+
+    // freeze builds the graph named `name` on the threads of `engine`. The arcs of a node are
+    // sorted, duplicate arcs are kept. No producer may be in use any more.
+    public Graph freeze(final String name, final SccEngine engine) {
+        int n = numNodes;
+        for (Producer producer: producers) {
+            n = Math.max(n, producer.maxNode + 1);
+        }
+        return freeze(name, engine, null, n);
+    }
+
+    // freeze builds the graph, node `v` of the producers becoming node rename[v] of the graph
+    // (if `rename` is not null). The graph has `n` nodes.
+    Graph freeze(final String name, final SccEngine engine, final int[] rename, final int n) {
+        final long start = System.nanoTime();
+        this.frozen = true;
+        final Producer[] buffers = producers.toArray(new Producer[0]);
+        producers.clear();
+
+        // Arcs as (source << 32 | target), sorted so that the arcs of a node are contiguous.
+        final int[] offsets = new int[buffers.length + 1];
+        for (int r = 0; r < buffers.length; r++) {
+            offsets[r + 1] = Math.addExact(offsets[r], buffers[r].numArcs());
+        }
+        final long[] arcs = new long[offsets[buffers.length]];
+        engine.forEachRange(buffers.length, (from, to) -> {
+            for (int r = from; r < to; r++) {
+                final IntStack buffer = buffers[r].arcs;
+                for (int i = 0, k = offsets[r]; i < buffer.size(); i += 2, k++) {
+                    final int source = rename == null ? buffer.get(i) : rename[buffer.get(i)];
+                    final int target = rename == null ? buffer.get(i + 1) : rename[buffer.get(i + 1)];
+                    arcs[k] = ((long) source << 32) | target;
+                }
+                // Let the buffer be collected, IntStack.clear would keep its storage.
+                buffers[r].arcs = null;
+            }
+        });
+        Arrays.parallelSort(arcs);
+
+        // The arcs of `v` are arcs[begin[v]..end[v]).
+        final int[] begin = new int[n];
+        final int[] end = new int[n];
+        engine.forEachRange(arcs.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                final int v = (int) (arcs[i] >>> 32);
+                if (i == 0 || (int) (arcs[i - 1] >>> 32) != v) {
+                    begin[v] = i;
+                }
+                if (i == arcs.length - 1 || (int) (arcs[i + 1] >>> 32) != v) {
+                    end[v] = i + 1;
+                }
+            }
+        });
+        final GraphNode[] nodes = new GraphNode[n];
+        engine.forEachRange(n, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                final GraphNode node = new GraphNode(v);
+                final List<Integer> list = new ArrayList<Integer>(end[v] - begin[v]);
+                for (int i = begin[v]; i < end[v]; i++) {
+                    list.add((int) arcs[i]);
+                }
+                node.setArcs(list);
+                nodes[v] = node;
+            }
+        });
+
+        final Graph graph = new Graph(name);
+        for (GraphNode node: nodes) {
+            graph.addNode(node);
+        }
+        final long duration = System.nanoTime() - start;
+        System.err.println("Runtime for freeze: " + duration);
+        return graph;
+    }
+}
@@ -12,6 +12,9 @@ public class GraphNode implements Serializable {
     private List<Integer> arcs;
     // Each node is associated with a unique id.
     private int id;
+    // selfLoop is set when the arc from this node to itself was moved out of `arcs`
+    // by the preprocessing. A singleton SCC with a self-loop is still a cycle.
+    private boolean selfLoop;
 
     // Constructor.
     public GraphNode(int id) {
@@ -28,6 +31,14 @@ public class GraphNode implements Serializable {
         return this.arcs;
     }
 
+    public void setSelfLoop(boolean selfLoop) {
+        this.selfLoop = selfLoop;
+    }
+
+    public boolean hasSelfLoop() {
+        return this.selfLoop;
+    }
+
     // Check if it is a terminal node.
     public boolean hasArcs() {
         if (arcs == null) {
@@ -0,0 +1,206 @@
+package tarjanUF;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Ingest reads a raw state space dump, as written by `dve2lts-mc`, straight into a Graph.
+// The dump has an arc per line, "source target", the states being arbitrary 64-bit ids.
+// This replaces `divineParser/augment` and `augmentHelper` (sed, sort | uniq, a Python
+// dictionary, then Main.readFile parsing the text again) with a single parallel pass:
+// - the file is cut into byte ranges, a line belonging to the range it starts in, and every
+//   range is memory mapped and parsed by a thread of the engine,
+// - the state ids are interned into dense provisional ints by a shared LongIntMap and the arcs
+//   kept in a GraphBuilder producer per range,
+// - the nodes are finally numbered in increasing order of state id, so that the graph (hence
+//   the init nodes, the checkpoints, ...) does not depend on the interleaving of the threads.
+// The state id of every node is kept in Graph.getStateIds.
+public class Ingest {
+
+    // Ranges are at most this long so that they can be memory mapped.
+    private static final long MAX_RANGE = 1L << 30;
+    // A line is assumed to be shorter than this, a range is mapped this far past its end.
+    private static final int MAX_LINE = 1 << 16;
+
+    // read builds the graph in the dump `filename` on the threads of `engine`.
+    public static Graph read(final String filename, final SccEngine engine) throws IOException {
+        final long start = System.nanoTime();
+
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r"); FileChannel channel = file.getChannel()) {
+            final long size = channel.size();
+            final int ranges = (int) Math.max(engine.getNumWorkers(), (size + MAX_RANGE - 1) / MAX_RANGE);
+            final long rangeLength = Math.max(1, (size + ranges - 1) / ranges);
+
+            // Every line has at least 4 bytes and two states, most states are the source of some arc.
+            int capacity = (int) Math.min(LongIntMap.MAX_CAPACITY, Math.max(1024, size / 8));
+            LongIntMap ids;
+            GraphBuilder arcs;
+            while (true) {
+                final LongIntMap map = new LongIntMap(capacity);
+                final GraphBuilder builder = new GraphBuilder();
+                try {
+                    engine.forEachRange(ranges, (from, to) -> {
+                        for (int r = from; r < to; r++) {
+                            parseRange(channel, r * rangeLength, Math.min(size, (r + 1) * rangeLength),
+                                    size, map, builder.producer());
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    // A malformed line or a failed mapping, as thrown by parseRange.
+                    if (e.getCause() instanceof UncheckedIOException) {
+                        throw ((UncheckedIOException) e.getCause()).getCause();
+                    }
+                    throw e;
+                }
+                if (!map.overflow()) {
+                    ids = map;
+                    arcs = builder;
+                    break;
+                }
+                // The estimate was too low, start over with a larger table if there is one.
+                if (capacity >= LongIntMap.MAX_CAPACITY) {
+                    throw new IOException("The dump has too many states for the largest table of ids.");
+                }
+                capacity = (int) Math.min(LongIntMap.MAX_CAPACITY, 4L * capacity);
+                System.err.println("Ingest: more states than expected, retrying with room for " + capacity + ".");
+            }
+
+            final Graph graph = build(filename, ids, arcs, engine);
+            final long duration = System.nanoTime() - start;
+            System.err.println("Ingested " + graph.N() + " states.");
+            System.err.println("Runtime for input: " + duration);
+            return graph;
+        }
+    }
+
+    // parseRange parses the lines starting in [from, to) of a file of `size` bytes.
+    // The arcs go to `arcs` between provisional ids. Stops early if `ids` is full, which
+    // `ids.overflow` tells. A line holds two signed 64-bit ids and possibly more numbers, which
+    // are ignored, separated by blanks; anything else throws an UncheckedIOException.
+    private static void parseRange(final FileChannel channel, final long from, final long to, final long size,
+                                   final LongIntMap ids, final GraphBuilder.Producer arcs) {
+        if (from >= to) {
+            return;
+        }
+        final MappedByteBuffer buffer;
+        final long mapFrom = Math.max(0, from - 1);
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapFrom, Math.min(size, to + MAX_LINE) - mapFrom);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final int end = (int) (to - mapFrom);
+        int pos = 0;
+        // Skip the line started in the previous range.
+        if (from > 0) {
+            while (pos < buffer.limit() && buffer.get(pos) != '\n') {
+                pos++;
+            }
+            pos++;
+        }
+
+        final long[] numbers = new long[2];
+        while (pos < end && pos < buffer.limit()) {
+            final int line = pos;
+            // Parse up to two numbers until the end of the line.
+            int count = 0;
+            while (pos < buffer.limit() && buffer.get(pos) != '\n') {
+                byte b = buffer.get(pos);
+                if (b == ' ' || b == '\t' || b == '\r') {
+                    pos++;
+                    continue;
+                }
+                final boolean negative = b == '-';
+                if (negative) {
+                    pos++;
+                }
+                // Accumulate negatively as Long.parseLong does, so that Long.MIN_VALUE fits.
+                final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+                long value = 0;
+                int digits = 0;
+                while (pos < buffer.limit() && (b = buffer.get(pos)) >= '0' && b <= '9') {
+                    final int digit = b - '0';
+                    if (value < limit / 10 || 10 * value < limit + digit) {
+                        throw malformed(mapFrom + line, "an id out of the 64-bit range");
+                    }
+                    value = 10 * value - digit;
+                    digits++;
+                    pos++;
+                }
+                if (digits == 0 || (pos < buffer.limit() && b != ' ' && b != '\t' && b != '\r' && b != '\n')) {
+                    throw malformed(mapFrom + line, "a malformed id");
+                }
+                if (count < 2) {
+                    numbers[count] = negative ? value : -value;
+                }
+                count++;
+            }
+            pos++;
+            if (count == 0) {
+                // Blank line.
+                continue;
+            }
+            if (count < 2) {
+                throw malformed(mapFrom + line, "a single id");
+            }
+            final int source = ids.intern(numbers[0]);
+            final int target = ids.intern(numbers[1]);
+            if (source == -1 || target == -1) {
+                return;
+            }
+            arcs.addArc(source, target);
+        }
+    }
+
+    // malformed returns the error for the line at `offset` in the file holding `what`.
+    private static UncheckedIOException malformed(final long offset, final String what) {
+        return new UncheckedIOException(new IOException("The line at byte " + offset + " has " + what + "."));
+    }
+
+    // build numbers the states in increasing order and creates the graph from the arcs.
+    private static Graph build(final String name, final LongIntMap ids, final GraphBuilder arcs, final SccEngine engine) {
+        final int n = ids.size();
+        final long[] keys = ids.keysById(engine);
+        final long[] stateIds = keys.clone();
+        Arrays.parallelSort(stateIds);
+        // rank[p] is the node of the provisional id `p`.
+        final int[] rank = new int[n];
+        engine.forEachRange(n, (from, to) -> {
+            for (int p = from; p < to; p++) {
+                rank[p] = Arrays.binarySearch(stateIds, keys[p]);
+            }
+        });
+
+        final Graph graph = arcs.freeze(name, engine, rank, n);
+        graph.setStateIds(stateIds);
+        return graph;
+    }
+
+    // readInits reads the init states in `filename`, one per line, as nodes of `graph`.
+    public static List<Integer> readInits(final Graph graph, final String filename) throws IOException {
+        final long[] stateIds = graph.getStateIds();
+        final List<Integer> initNodes = new ArrayList<Integer>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(filename)))) {
+            for (String line = br.readLine(); line != null; line = br.readLine()) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                final int v = Arrays.binarySearch(stateIds, Long.parseLong(line));
+                if (v < 0) {
+                    throw new IOException("Init state " + line + " is not in the graph.");
+                }
+                initNodes.add(v);
+            }
+        }
+        return initNodes;
+    }
+}
@@ -0,0 +1,65 @@
+package tarjanUF;
+
+import java.util.Arrays;
+
+public class IntStack {
+
+    // elements holds the contents of the stack, elements[size - 1] being the top.
+    // The array is never shrunk so that a worker can reuse it across runs.
+    private int[] elements;
+    private int size;
+
+    // Constructors.
+    public IntStack() {
+        this(16);
+    }
+
+    public IntStack(int capacity) {
+        this.elements = new int[Math.max(1, capacity)];
+        this.size = 0;
+    }
+
+    // push puts `value` on top of the stack, growing the storage if required.
+    public void push(int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, 2 * elements.length);
+        }
+        elements[size++] = value;
+    }
+
+    // pop removes and returns the element on top of the stack.
+    public int pop() {
+        assert size > 0;
+        return elements[--size];
+    }
+
+    // peek returns the element on top of the stack without removing it.
+    public int peek() {
+        assert size > 0;
+        return elements[size - 1];
+    }
+
+    // get returns the `i`th element from the bottom of the stack.
+    public int get(int i) {
+        assert i >= 0 && i < size;
+        return elements[i];
+    }
+
+    // toArray returns a copy of the elements from bottom to top.
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    public boolean empty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // clear empties the stack but keeps the allocated storage.
+    public void clear() {
+        size = 0;
+    }
+}
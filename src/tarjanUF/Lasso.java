@@ -0,0 +1,160 @@
+package tarjanUF;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Lasso records what the workers already know about the paths of the graph while they search,
+// so that a lasso (a path from a DFS root to an SCC followed by a cycle through the SCC)
+// can be given for any SCC without traversing the graph again:
+// - parent[w] is the source of the arc by which `w` was first claimed, hence following the
+//   parents from any reached node leads back to a DFS root (an init node),
+// - closing[w] is the source of the first arc found to close a cycle on `w`, i.e., the arc
+//   of the claimFound case. Both ends of such an arc end up in the same SCC.
+// Every entry is written once by the first worker to get there, so the parents of a node were
+// written before the node itself and the links cannot form a cycle.
+// Ids are those of the graph, [0..N - 1]. An entry holds the node + 1, 0 if not written.
+public class Lasso {
+
+    private final AtomicIntegerArray parent;
+    private final AtomicIntegerArray closing;
+    // closers[0..numClosers) are the nodes with a closing arc, in the order they got it, so that
+    // the queries only look at those rather than at every node.
+    private final AtomicIntegerArray closers;
+    private final AtomicInteger numClosers;
+    // entry[c] is the node + 1 closing a cycle of the SCC whose label is `c`, 0 if there is none.
+    // It is computed by the first query from the closers.
+    private int[] entry;
+    // from[y] is the node + 1 a search of `cycle` came to `y` from, 0 if not visited. Allocated by
+    // the first search and cleared after every one, only the entries visited.
+    private int[] from;
+
+    // Constructor.
+    public Lasso(final int n) {
+        this.parent = new AtomicIntegerArray(n);
+        this.closing = new AtomicIntegerArray(n);
+        this.closers = new AtomicIntegerArray(n);
+        this.numClosers = new AtomicInteger(0);
+    }
+
+    // root records that a DFS was started from `v`.
+    public void root(final int v) {
+        parent.compareAndSet(v, 0, v + 1);
+    }
+
+    // reached records that `w` was claimed through the arc `v` -> `w`.
+    public void reached(final int v, final int w) {
+        parent.compareAndSet(w, 0, v + 1);
+    }
+
+    // closed records that the arc `v` -> `w` closes a cycle.
+    public void closed(final int v, final int w) {
+        if (closing.compareAndSet(w, 0, v + 1)) {
+            closers.set(numClosers.getAndIncrement(), w);
+        }
+    }
+
+    // isReached returns true if `v` was reached by some worker.
+    public boolean isReached(final int v) {
+        return parent.get(v) != 0;
+    }
+
+    // prefix returns the path from a DFS root to `v` (both included),
+    // or null if `v` was never reached.
+    public IntStack prefix(final int v) {
+        if (!isReached(v)) {
+            return null;
+        }
+        final IntStack reversed = new IntStack();
+        int u = v;
+        reversed.push(u);
+        while (parent.get(u) - 1 != u) {
+            u = parent.get(u) - 1;
+            reversed.push(u);
+        }
+        final IntStack path = new IntStack(reversed.size());
+        while (!reversed.empty()) {
+            path.push(reversed.pop());
+        }
+        return path;
+    }
+
+    // cycle returns a cycle through the SCC of `v` starting (and implicitly ending) at the node
+    // it returns first, or null if no cycle goes through it, i.e., it is a single node without
+    // a self-loop. `labels` are those returned by the search that filled this Lasso.
+    // The parents are tried first, which only walks the links stored. If they leave the SCC before
+    // closing the cycle, the cycle is found by a breadth first search restricted to the SCC which
+    // stops once it is closed.
+    public IntStack cycle(final int v, final int[] labels, final Digraph graph) {
+        if (entry == null) {
+            index(labels);
+        }
+        final int w = entry[labels[v]] - 1;
+        if (w == -1) {
+            return null;
+        }
+        final int u = closing.get(w) - 1;
+        final int scc = labels[w];
+
+        // The arc u -> w closes the cycle w -> ... -> u if w is an ancestor of u within the SCC.
+        final IntStack reversed = new IntStack();
+        int x = u;
+        reversed.push(x);
+        while (x != w && labels[x] == scc && parent.get(x) - 1 != x) {
+            x = parent.get(x) - 1;
+            reversed.push(x);
+        }
+        final IntStack path = new IntStack(reversed.size());
+        if (x == w) {
+            while (!reversed.empty()) {
+                path.push(reversed.pop());
+            }
+            return path;
+        }
+
+        // Breadth first search from `w` to `u` inside the SCC, `queue` holding the nodes visited.
+        if (from == null) {
+            from = new int[labels.length];
+        }
+        final IntStack queue = new IntStack();
+        final ArcCursor cursor = graph.cursor(0);
+        from[w] = w + 1;
+        queue.push(w);
+        for (int head = 0; head < queue.size() && from[u] == 0; head++) {
+            final int y = queue.get(head);
+            cursor.start(y);
+            while (cursor.hasNext()) {
+                final int z = cursor.next();
+                if (labels[z] == scc && from[z] == 0) {
+                    from[z] = y + 1;
+                    queue.push(z);
+                }
+            }
+        }
+        assert from[u] != 0;
+        reversed.clear();
+        for (int y = u; y != w; y = from[y] - 1) {
+            reversed.push(y);
+        }
+        reversed.push(w);
+        while (!reversed.empty()) {
+            path.push(reversed.pop());
+        }
+        for (int i = 0; i < queue.size(); i++) {
+            from[queue.get(i)] = 0;
+        }
+        return path;
+    }
+
+    // index finds a node closing a cycle for every SCC, in one pass over the closers.
+    private void index(final int[] labels) {
+        final int[] result = new int[labels.length];
+        final int count = numClosers.get();
+        for (int i = 0; i < count; i++) {
+            final int w = closers.get(i);
+            if (result[labels[w]] == 0) {
+                result[labels[w]] = w + 1;
+            }
+        }
+        this.entry = result;
+    }
+}
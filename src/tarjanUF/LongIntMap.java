@@ -0,0 +1,139 @@
+package tarjanUF;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// LongIntMap interns 64-bit keys into the dense ints [0..size() - 1], in the order in which
+// the keys are first interned. It is a concurrent open-addressing hash table with linear probing
+// over primitive arrays: a key is claimed by a CAS on an empty slot, then its id is published in
+// the slot next to it. The table does not grow, `intern` fails once it is too full instead.
+public class LongIntMap {
+
+    // MAX_CAPACITY is the largest capacity a table can be built with.
+    public static final int MAX_CAPACITY = 1 << 29;
+
+    // EMPTY marks an unused slot, so that a new table needs no initialization.
+    // The key EMPTY itself is kept aside in `emptyKeyId`.
+    private static final long EMPTY = 0;
+
+    private final AtomicLongArray keys;
+    // ids[i] is the id of keys[i] + 1, 0 while the id is being published.
+    private final AtomicIntegerArray ids;
+    private final int mask;
+    // limit is the number of keys beyond which `intern` fails.
+    private final int limit;
+    private final AtomicInteger size;
+    private final AtomicInteger emptyKeyId;
+    // overflowed is set once `intern` failed.
+    private volatile boolean overflowed;
+
+    // Constructor.
+    // Allocates room for `capacity` keys at a load factor of at most 1/2.
+    public LongIntMap(final int capacity) {
+        final int slots = Integer.highestOneBit(Math.max(1024, 2 * capacity - 1)) << 1;
+        if (slots <= 0 || slots > (1 << 30)) {
+            throw new IllegalArgumentException("LongIntMap capacity too large: " + capacity);
+        }
+        this.keys = new AtomicLongArray(slots);
+        this.ids = new AtomicIntegerArray(slots);
+        this.mask = slots - 1;
+        this.limit = slots / 4 * 3;
+        this.size = new AtomicInteger(0);
+        this.emptyKeyId = new AtomicInteger(-1);
+    }
+
+    // size returns the number of keys interned.
+    public int size() {
+        return this.size.get();
+    }
+
+    // intern returns the id of `key`, giving it the next free id if it is new.
+    // Returns -1 if the table is too full for a new key.
+    public int intern(final long key) {
+        if (key == EMPTY) {
+            final int id = emptyKeyId.get();
+            if (id != -1) {
+                return id;
+            }
+            // Taken once, hence a lock is fine.
+            synchronized (emptyKeyId) {
+                if (emptyKeyId.get() == -1) {
+                    emptyKeyId.set(size.getAndIncrement());
+                }
+                return emptyKeyId.get();
+            }
+        }
+
+        int i = hash(key) & mask;
+        while (true) {
+            final long k = keys.get(i);
+            if (k == key) {
+                return idAt(i);
+            }
+            if (k == EMPTY) {
+                // A new key. At most one more key per thread gets past this check,
+                // the table cannot fill up.
+                if (size.get() >= limit) {
+                    this.overflowed = true;
+                    return -1;
+                }
+                if (keys.compareAndSet(i, EMPTY, key)) {
+                    final int id = size.getAndIncrement();
+                    // Published even past the limit so that no thread waits forever on this slot.
+                    ids.set(i, id + 1);
+                    if (id >= limit) {
+                        this.overflowed = true;
+                        return -1;
+                    }
+                    return id;
+                }
+                // Another thread took the slot, it might have been for `key`.
+                continue;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    // overflow returns true if some `intern` failed because the table was too full.
+    public boolean overflow() {
+        return this.overflowed;
+    }
+
+    // idAt waits for the id of the key in slot `i` to be published.
+    private int idAt(final int i) {
+        int id = ids.get(i);
+        while (id == 0) {
+            Thread.onSpinWait();
+            id = ids.get(i);
+        }
+        return id - 1;
+    }
+
+    // keysById returns the keys by id: result[id] is the key interned as `id`.
+    // Must not be called while keys are being interned.
+    public long[] keysById(final SccEngine engine) {
+        final long[] result = new long[size()];
+        engine.forEachRange(mask + 1, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                if (keys.get(i) != EMPTY) {
+                    result[ids.get(i) - 1] = keys.get(i);
+                }
+            }
+        });
+        if (emptyKeyId.get() != -1) {
+            result[emptyKeyId.get()] = EMPTY;
+        }
+        return result;
+    }
+
+    // hash spreads the bits of `key` (the finalizer of MurmurHash3).
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb53a87e98e4fL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -1,20 +1,28 @@
 package tarjanUF;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.FileInputStream;
+import java.io.FileWriter;
 import java.io.InputStreamReader;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongToIntFunction;
 
 public class Main {
 
     // readFile reads a directed graph from the file `filename` which contains an edge in each line.
-    // The graph is stored as an adjacency list.
-    private static void readFile(Graph graph, String filename) throws IOException {
+    // The graph is stored as an adjacency list. Returns the number of arcs read.
+    static long readFile(Graph graph, String filename) throws IOException {
         final long start = System.nanoTime();
+        long arcs = 0;
 
         final FileInputStream in = new FileInputStream(filename);
         try (BufferedReader br = new BufferedReader(new InputStreamReader(in))) {
@@ -22,6 +30,7 @@ public class Main {
                 final String[] split = line.trim().split("\\s+");
                 final int nodeId = Integer.parseInt(split[0]);
                 final int arcId = Integer.parseInt(split[1]);
+                arcs++;
                 if (graph.hasNode(nodeId)) {
                     // If the graph already has `nodeId`, simply append in `nodeId`s list.
                     graph.addArc(nodeId, arcId);
@@ -42,6 +51,7 @@ public class Main {
 
         final long duration = System.nanoTime() - start;
         System.err.println("Runtime for input: " + duration);
+        return arcs;
     }
 
     // readInits reads the set of initial nodes from which the entire graph can be discovered.
@@ -56,52 +66,543 @@ public class Main {
         }
     }
 
+    // readIds reads a list of node ids, one per line, as 64-bit ids.
+    public static void readIds(List<Long> ids, String filename) throws IOException {
+        final FileInputStream in = new FileInputStream(filename);
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(in))) {
+            for (String line = br.readLine(); line != null; line = br.readLine()) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    ids.add(Long.parseLong(line));
+                }
+            }
+        }
+    }
+
+    // unprune maps the `labels` of a graph pruned by the Preprocessor back to the `n` nodes of the
+    // graph loaded, `renumbering` giving the loaded node of a searched one. The pruned nodes are not
+    // reachable from the init nodes, hence singleton SCCs as a search of the whole graph finds them.
+    private static int[] unprune(final int[] labels, final Renumbering renumbering, final int n) {
+        final int[] result = new int[n];
+        for (int v = 0; v < n; v++) {
+            result[v] = v;
+        }
+        for (int v = 0; v < labels.length; v++) {
+            result[renumbering.original(v)] = labels[v] == -1 ? -1 : renumbering.original(labels[v]);
+        }
+        return result;
+    }
+
     // printSCCs outputs the SCCs found with each SCC in a newline.
-    public static void printSCCs(Map<Integer, Set<GraphNode>> sccs) {
+    // `labels[v]` is the representative of the SCC of node `v`, -1 if its SCC was not found.
+    // `original` gives the id printed for a node, e.g., its id before renumbering.
+    public static void printSCCs(int[] labels, IntToLongFunction original, PrintWriter out) {
         final long start = System.nanoTime();
 
-        for (Set<GraphNode> sgn: sccs.values()) {
-            for (GraphNode gn: sgn) {
-                System.out.print(gn.getId());
-                System.out.print(" ");
+        // Group the nodes by their representative with a counting sort.
+        final int n = labels.length;
+        final int[] begin = new int[n + 1];
+        for (int label: labels) {
+            if (label != -1) {
+                begin[label + 1]++;
             }
-            System.out.println();
+        }
+        for (int i = 0; i < n; i++) {
+            begin[i + 1] += begin[i];
+        }
+        final int[] members = new int[n];
+        final int[] fill = Arrays.copyOf(begin, n);
+        for (int v = 0; v < n; v++) {
+            if (labels[v] == -1) {
+                continue;
+            }
+            members[fill[labels[v]]++] = v;
         }
 
+        for (int root = 0; root < n; root++) {
+            if (begin[root] == begin[root + 1]) {
+                continue;
+            }
+            for (int i = begin[root]; i < begin[root + 1]; i++) {
+                out.print(original.applyAsLong(members[i]));
+                out.print(' ');
+            }
+            out.println();
+        }
+        out.flush();
+
         final long duration = System.nanoTime() - start;
         System.err.println("Runtime for output: " + duration);
     }
 
-    public static void main(String[] args) {
-        // The program requires 3 parameters in its input.
-        // 1. The graph to be processed.
-        // 2. The set of intital nodes from which entire graph can be discoverd.
-        // 3. Number of threads on which algorithm needs to run. #threads = -1 implies maximum available threads.
-        assert args.length == 3;
-        System.err.println("Processing graph: " + args[0] + " starting with initial nodes from " + args[2] + " with " + args[1] + " threads.");
-        System.err.println("Runtimes are in nanoseconds.");
+    // printLassos outputs a lasso for the SCC of every node in `targets` (original ids), one per line:
+    //      target: prefix | cycle
+    // where the prefix leads from an init node to the first node of the cycle. The cycle is left
+    // empty if the SCC has none and the line reads "target: unreached" if the node was not reached.
+    // `toSearched` and `original` map the original ids to the searched graph (-1 if not in it) and back.
+    // `graph` is only used for the self-loops removed by preprocessing and can be null.
+    public static void printLassos(List<Long> targets, Lasso lasso, int[] labels, Digraph searched, Graph graph,
+                                   LongToIntFunction toSearched, IntToLongFunction original, PrintWriter out) {
+        for (long target: targets) {
+            out.print(target);
+            out.print(':');
+            final int v = toSearched.applyAsInt(target);
+            if (v < 0 || !lasso.isReached(v)) {
+                out.println(" unreached");
+                continue;
+            }
+            IntStack cycle = lasso.cycle(v, labels, searched);
+            if (cycle == null && graph != null && graph.get(v).hasSelfLoop()) {
+                cycle = new IntStack();
+                cycle.push(v);
+            }
+            final IntStack prefix = lasso.prefix(cycle == null ? v : cycle.get(0));
+            for (int i = 0; i < prefix.size(); i++) {
+                out.print(' ');
+                out.print(original.applyAsLong(prefix.get(i)));
+            }
+            out.print(" |");
+            for (int i = 0; cycle != null && i < cycle.size(); i++) {
+                out.print(' ');
+                out.print(original.applyAsLong(cycle.get(i)));
+            }
+            out.println();
+        }
+        out.flush();
+    }
+
+    // printTargets outputs the SCC of every node in `targets` (original ids), one per line:
+    //      target: members
+    // or "target: unreached" if the node was not reached. `sccs` are the SCCs returned by
+    // SccEngine.searchTargets for the targets in the searched graph, in the same order but
+    // without those `toSearched` does not find.
+    public static void printTargets(List<Long> targets, LongToIntFunction toSearched, int[][] sccs,
+                                    IntToLongFunction original, PrintWriter out) {
+        int i = 0;
+        for (long target: targets) {
+            out.print(target);
+            out.print(':');
+            final int[] scc = toSearched.applyAsInt(target) < 0 ? null : sccs[i++];
+            if (scc == null) {
+                out.println(" unreached");
+                continue;
+            }
+            for (int v: scc) {
+                out.print(' ');
+                out.print(original.applyAsLong(v));
+            }
+            out.println();
+        }
+        out.flush();
+    }
+
+    // readOptions separates the positional arguments from the options in `args`.
+    // Options are of the form --name=value and can be given anywhere after the program name.
+    public static Map<String, String> readOptions(String[] args, List<String> positional) {
+        final Map<String, String> options = new HashMap<String, String>();
+        for (String arg: args) {
+            if (arg.startsWith("--")) {
+                final int eq = arg.indexOf('=');
+                if (eq == -1) {
+                    options.put(arg.substring(2), "true");
+                } else {
+                    options.put(arg.substring(2, eq), arg.substring(eq + 1));
+                }
+            } else {
+                positional.add(arg);
+            }
+        }
+        return options;
+    }
+
+    // load reads the graph in `graphFile` and the init nodes in `initFile`.
+    // If `initFile` is null the list of init nodes is left empty.
+    // If `raw` is set `graphFile` is a state space dump read by Ingest on the threads of `engine`.
+    public static Pair<Graph, List<Integer>> load(String graphFile, String initFile, boolean raw, SccEngine engine,
+                                                  RunReport report) throws IOException {
         final long start = System.nanoTime();
+        final Graph graph;
+        List<Integer> initNodes = new ArrayList<Integer>();
+        final long numArcs;
+        if (raw) {
+            graph = Ingest.read(graphFile, engine);
+            numArcs = graph.numArcs();
+            if (initFile != null) {
+                initNodes = Ingest.readInits(graph, initFile);
+            }
+        } else {
+            graph = new Graph(graphFile);
+            numArcs = readFile(graph, graphFile);
+            if (initFile != null) {
+                readInits(initNodes, initFile);
+            }
+        }
+        report.phase("load", System.nanoTime() - start);
+        report.stat("nodes", graph.N());
+        report.stat("arcs", numArcs);
+        return new Pair<Graph, List<Integer>>(graph, initNodes);
+    }
 
-        // Read inputs from file.
-        final Graph graph = new Graph(args[0]);
+    // pipeline searches the edge list in `graphFile` while a loader thread is still reading it, starting
+    // from the init nodes in `initFile`. The arcs must be sorted by source and the ids be in [0..n - 1].
+    // The SCCs are printed to `out` as `process` does.
+    public static void pipeline(String graphFile, String initFile, int n, SccEngine engine, RunReport report,
+                                PrintWriter out) throws IOException {
         final List<Integer> initNodes = new ArrayList<Integer>();
+        readInits(initNodes, initFile);
+        report.stat("initNodes", initNodes.size());
+
+        final StreamingGraph graph = new StreamingGraph(n);
+        final Thread loader = graph.load(graphFile);
+        engine.setTrackLasso(false);
+        final int[] labels = engine.search(graph, initNodes);
         try {
-            readFile(graph, args[0]);
-            readInits(initNodes, args[2]);
-        } catch (IOException e) {
-            e.printStackTrace();
+            loader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading " + graphFile + ".", e);
+        }
+        if (graph.getFailure() != null) {
+            throw new IOException("Loading " + graphFile + " failed.", graph.getFailure());
+        }
+        System.err.println("Pipeline: workers waited " + graph.getWaits() + " times for arcs not read yet.");
+        report.phase("load", graph.getLoadNanos());
+        report.phase("reset", engine.getResetNanos());
+        report.phase("search", engine.getSearchNanos());
+        report.phase("label", engine.getLabelNanos());
+        report.stat("nodes", graph.numNodes());
+        report.stat("arcs", graph.numArcs());
+        report.stat("loadWaits", graph.getWaits());
+        report.stat("contendedRounds", engine.getPolicy().getContended());
+
+        // Only the nodes read are printed, `n` being a bound.
+        final int[] read = Arrays.copyOf(labels, graph.numNodes());
+        long numSCCs = 0;
+        for (int v = 0; v < read.length; v++) {
+            if (read[v] == v) {
+                numSCCs++;
+            }
+        }
+        report.stat("sccs", numSCCs);
+        final long start = System.nanoTime();
+        printSCCs(read, v -> v, out);
+        report.phase("output", System.nanoTime() - start);
+    }
+
+    // process runs the rest of the pipeline on a graph returned by `load` with the threads of `engine`:
+    // seed selection, preprocessing, renumbering, planning, compression, search, labelling and output to `out`.
+    // The runtime of every phase is recorded in `report`.
+    public static void process(Pair<Graph, List<Integer>> loaded, SccEngine engine, Map<String, String> options,
+                               RunReport report, PrintWriter out) throws IOException {
+        long start;
+        Graph graph = loaded.getKey();
+        List<Integer> initNodes = loaded.getValue();
+        // The ids in the dump the graph was ingested from, if any.
+        final long[] stateIds = graph.getStateIds();
+        // The nodes of the graph as loaded are [0..loadedNodes - 1].
+        final int loadedNodes = graph.N();
+
+        // Compute the seeds if no init file was given.
+        if (initNodes.isEmpty()) {
+            start = System.nanoTime();
+            initNodes = new SeedSelector(engine).select(graph);
+            report.phase("seeds", System.nanoTime() - start);
+        }
+        report.stat("initNodes", initNodes.size());
+
+        // `renumbering` maps the nodes of the graph being searched to the original ones.
+        Renumbering renumbering = null;
+        // pruned is true if the preprocessing dropped the nodes not reachable from the init nodes.
+        boolean pruned = false;
+        // Simplify the graph if asked.
+        if (options.containsKey("preprocess")) {
+            start = System.nanoTime();
+            final Preprocessor preprocessor = new Preprocessor(engine);
+            graph = preprocessor.run(graph, initNodes);
+            if (preprocessor.getRenumbering() != null) {
+                renumbering = preprocessor.getRenumbering();
+                initNodes = renumbering.apply(initNodes);
+                pruned = true;
+            }
+            report.phase("preprocess", System.nanoTime() - start);
+            report.stat("selfLoops", preprocessor.getSelfLoops());
+            report.stat("duplicateArcs", preprocessor.getDuplicateArcs());
+            report.stat("prunedNodes", preprocessor.getPrunedNodes());
+        }
+        // Renumber the nodes if asked. The original graph is not needed afterwards.
+        if (options.containsKey("renumber")) {
+            start = System.nanoTime();
+            final Renumbering.Order order = Renumbering.Order.valueOf(options.get("renumber"));
+            final Renumbering locality = Renumbering.compute(graph, initNodes, order);
+            graph = locality.apply(graph, engine);
+            initNodes = locality.apply(initNodes);
+            renumbering = renumbering == null ? locality : renumbering.then(locality);
+            report.phase("renumber", System.nanoTime() - start);
+        }
+
+        // Plan the search if asked, otherwise every worker searches.
+        Planner planner = null;
+        if (options.containsKey("plan")) {
+            start = System.nanoTime();
+            planner = new Planner(engine);
+            planner.run(graph);
+            engine.setActiveWorkers(planner.getThreads());
+            report.phase("plan", System.nanoTime() - start);
+            report.stat("plannedWorkers", planner.getThreads());
+        } else {
+            engine.setActiveWorkers(engine.getNumWorkers());
+        }
+        engine.setAdaptive(planner != null);
+        engine.setPickMode(UF.PickMode.valueOf(options.getOrDefault("pick", "skip")));
+        // On a giant SCC the workers done with their roots would otherwise wait for the one in it.
+        engine.setShareWork(options.containsKey("share") || (planner != null && planner.isGiantSCC()));
+
+        // Compress the adjacency lists if asked. Done last as the other stages need lists.
+        // When splitting, every large piece is compressed on its own instead.
+        Digraph searched = graph;
+        // The lassos, checkpoints, timeouts, targets and bottom SCCs are handled by the engine, hence they need
+        // a single search of the whole graph.
+        final boolean split = (options.containsKey("split") || (planner != null && planner.isSplit()))
+                && !options.containsKey("lasso") && !options.containsKey("checkpoint") && !options.containsKey("timeout")
+                && !options.containsKey("targets") && !options.containsKey("bottom");
+        final boolean compress = options.containsKey("compress") || (planner != null && planner.isCompress());
+        if (compress && !split) {
+            start = System.nanoTime();
+            final CompressedGraph compressed = CompressedGraph.compress(graph, engine);
+            searched = compressed;
+            graph = null;
+            report.phase("compress", System.nanoTime() - start);
+            report.stat("compressedBytes", compressed.bytes());
+        }
+
+        // Print the ids of the original graph, or of the dump it was ingested from.
+        // `toSearched` maps them back to the graph searched, -1 if the node is not in it.
+        final Renumbering finalRenumbering = renumbering;
+        final IntToLongFunction original = v -> {
+            final int id = finalRenumbering == null ? v : finalRenumbering.original(v);
+            return stateIds == null ? id : stateIds[id];
+        };
+        final LongToIntFunction toSearched = target -> {
+            final int id;
+            if (stateIds == null) {
+                id = target < 0 || target >= loadedNodes ? -1 : (int) target;
+            } else {
+                // A state not in the dump gives a negative insertion point.
+                id = Math.max(-1, Arrays.binarySearch(stateIds, target));
+            }
+            return id == -1 || finalRenumbering == null ? id : finalRenumbering.newId(id);
+        };
+
+        // Only find the SCCs of the --targets if asked.
+        if (options.containsKey("targets")) {
+            final List<Long> targets = new ArrayList<Long>();
+            readIds(targets, options.get("targets"));
+            final IntStack ids = new IntStack();
+            for (long target: targets) {
+                final int v = toSearched.applyAsInt(target);
+                if (v >= 0) {
+                    ids.push(v);
+                }
+            }
+            engine.setTrackLasso(false);
+            final int[][] sccs = engine.searchTargets(searched, ids.toArray(),
+                    options.containsKey("targetsFromInit") ? initNodes : null);
+            report.phase("reset", engine.getResetNanos());
+            report.phase("search", engine.getSearchNanos());
+            report.phase("collect", engine.getLabelNanos());
+            report.stat("targets", targets.size());
+            start = System.nanoTime();
+            try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(options.get("targets") + ".scc")))) {
+                printTargets(targets, toSearched, sccs, original, writer);
+            }
+            report.phase("output", System.nanoTime() - start);
+            return;
+        }
+
+        // Only find the bottom SCCs if asked, printed as they are found.
+        if (options.containsKey("bottom")) {
+            engine.setTrackLasso(false);
+            final long numBottom = engine.searchBottom(searched, initNodes, members -> {
+                for (int v: members) {
+                    out.print(original.applyAsLong(v));
+                    out.print(' ');
+                }
+                out.println();
+            });
+            out.flush();
+            report.phase("reset", engine.getResetNanos());
+            report.phase("search", engine.getSearchNanos());
+            report.phase("output", engine.getLabelNanos());
+            report.stat("contendedRounds", engine.getPolicy().getContended());
+            report.stat("bottomSCCs", numBottom);
+            return;
         }
 
-        // Get the number of threads on which we should run the algorithm.
-        UFNode.workerCount = ConcurrentFastSCC.requiredProcessors(Integer.parseInt(args[1]));
-        // Create a new union find datastructure to maintain SCCs.
-        final UF unionfind = new UF(graph.N() + 1);
         // Run the aglorithm.
-        final Map<Integer, Set<GraphNode>> sccs = new ConcurrentFastSCC().searchSCCs(graph, initNodes, unionfind, UFNode.workerCount);
+        final int[] labels;
+        // complete is false if the search was stopped at the --timeout, only the SCCs found are printed then.
+        boolean complete = true;
+        if (split) {
+            final String limit = options.getOrDefault("split", "true");
+            final SplitSearch splitSearch = new SplitSearch(engine, limit.equals("true")
+                    ? SplitSearch.DEFAULT_SEQUENTIAL_LIMIT : Integer.parseInt(limit), compress);
+            labels = splitSearch.search(graph, initNodes, planner == null ? null : planner.getComponents());
+            report.phase("split", splitSearch.getSplitNanos());
+            report.phase("search", splitSearch.getSearchNanos());
+            report.stat("pieces", splitSearch.getPieces());
+            report.stat("sequentialPieces", splitSearch.getSequentialPieces());
+            report.stat("largestPiece", splitSearch.getLargestPiece());
+            report.stat("contendedRounds", splitSearch.getContended());
+        } else {
+            engine.setTrackLasso(options.containsKey("lasso"));
+            if (options.containsKey("checkpoint")) {
+                final long interval = Long.parseLong(options.getOrDefault("checkpointInterval", "60000"));
+                engine.setCheckpoint(new Checkpoint(options.get("checkpoint"), interval), options.containsKey("resume"));
+            }
+            if (options.containsKey("timeout")) {
+                final SearchHandle handle = engine.searchAsync(searched, initNodes, Long.parseLong(options.get("timeout")));
+                labels = handle.getLabels().join();
+                complete = handle.isComplete();
+            } else {
+                labels = engine.search(searched, initNodes);
+            }
+            report.phase("reset", engine.getResetNanos());
+            report.phase("search", engine.getSearchNanos());
+            report.phase("label", engine.getLabelNanos());
+            report.stat("contendedRounds", engine.getPolicy().getContended());
+            report.stat("activeWorkers", engine.getActiveWorkers());
+            report.stat("cacheHits", engine.getCacheHits());
+            report.stat("picks", engine.getUnionFind().getPicks());
+            report.stat("pickSteps", engine.getUnionFind().getPickSteps());
+        }
+        // The pruned nodes are printed as the singleton SCCs they are, unless the search was stopped:
+        // nodes not reachable from the init nodes are not found then either.
+        final int[] printed;
+        final IntToLongFunction printedId;
+        if (pruned && complete) {
+            printed = unprune(labels, finalRenumbering, loadedNodes);
+            printedId = v -> stateIds == null ? v : stateIds[v];
+        } else {
+            printed = labels;
+            printedId = original;
+        }
+        long numSCCs = 0;
+        for (int v = 0; v < printed.length; v++) {
+            if (printed[v] == v) {
+                numSCCs++;
+            }
+        }
+        report.stat("sccs", numSCCs);
+        report.stat("complete", complete ? 1 : 0);
+        if (!complete) {
+            System.err.println("Search stopped after " + options.get("timeout") + "ms, printing the " + numSCCs
+                    + " SCCs found.");
+        }
+
+        start = System.nanoTime();
+        printSCCs(printed, printedId, out);
+        report.phase("output", System.nanoTime() - start);
+
+        // Lassos and the condensation need all the SCCs.
+        if (options.containsKey("lasso") && complete) {
+            start = System.nanoTime();
+            final List<Long> targets = new ArrayList<Long>();
+            readIds(targets, options.get("lasso"));
+            try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(options.get("lasso") + ".lasso")))) {
+                printLassos(targets, engine.getLasso(), labels, searched, graph, toSearched, original, writer);
+            }
+            report.phase("lasso", System.nanoTime() - start);
+        }
+
+        if (options.containsKey("condensation") && complete) {
+            start = System.nanoTime();
+            final Condensation condensation = Condensation.build(searched, labels, engine);
+            try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(options.get("condensation"))))) {
+                condensation.write(writer, original);
+            }
+            report.phase("condensation", System.nanoTime() - start);
+        }
+    }
+
+    public static void main(String[] argv) {
+        // The program requires 3 parameters in its input.
+        // 1. The graph to be processed.
+        // 2. Number of threads on which algorithm needs to run. #threads = -1 implies maximum available threads,
+        //      of which the Planner picks how many search (as --plan does).
+        // 3. The set of intital nodes from which entire graph can be discoverd.
+        //      Optional, if not given the seeds are computed by SeedSelector.
+        // Following options are supported:
+        // --backoff=<mode>: ContentionPolicy.Mode used while waiting on locks (default spinYield).
+        // --pick=<mode>: UF.PickMode used to walk past the explored members of a set (default skip).
+        // --renumber=<order>: Renumbering.Order used to renumber the nodes for locality before the search.
+        // --preprocess: remove self-loops and duplicate arcs and prune nodes unreachable from the init nodes.
+        //      The pruned nodes are printed as singleton SCCs all the same.
+        // --plan: let the Planner pick the number of workers searching, --split, --compress and --share, and stop
+        //      workers while they mostly wait on locks.
+        // --share: let the workers done with their roots join the sets of the others (see WorkBoard).
+        // --compress: search on a CompressedGraph instead of the adjacency lists.
+        //      The graph is still loaded as adjacency lists first, the peak memory of loading is unchanged.
+        // --split[=<limit>]: search the weakly connected components separately, those of at most
+        //      <limit> nodes sequentially (see SplitSearch).
+        // --checkpoint=<file>: save the dead sets to <file> every --checkpointInterval=<ms> (default 60000).
+        // --resume: restore the dead sets saved to the --checkpoint file first, the graph and options
+        //      must be those of the run that saved it.
+        // --timeout=<ms>: stop the search after <ms> milliseconds and print the SCCs found by then.
+        // --pipeline=<nodes>: search while the graph is still being read, the arcs being sorted by source and
+        //      the ids below <nodes>. Needs the init file, the other options do not apply (see StreamingGraph).
+        // --raw: the graph is a state space dump with 64-bit state ids, read by Ingest.
+        //      The init file and the printed SCCs use those ids too.
+        // --targets=<file>: only find the SCCs of the nodes listed in <file>, written to <file>.scc. The search
+        //      starts from those nodes, or from the init nodes with --targetsFromInit, and stops once they are resolved.
+        // --bottom: only print the bottom SCCs, those no arc leaves, as they are found.
+        // --lasso=<file>: write a lasso for the SCC of every node listed in <file> to <file>.lasso.
+        // --condensation=<file>: write the condensation DAG in topological order to <file>.
+        // --report=<file>: write a RunReport to <file>, as JSON if it ends with .json and as CSV otherwise.
+        final List<String> positional = new ArrayList<String>();
+        final Map<String, String> options = readOptions(argv, positional);
+        final String[] args = positional.toArray(new String[0]);
+        assert args.length == 2 || args.length == 3;
+        final String initFile = args.length == 3 ? args[2] : null;
+        if (options.containsKey("pipeline") && initFile == null) {
+            // The seeds are computed from the whole graph, which a pipelined search does not wait for.
+            System.err.println("--pipeline needs the init file.");
+            System.exit(1);
+        }
+        System.err.println("Processing graph: " + args[0] + " starting with initial nodes from "
+                + (initFile == null ? "computed seeds" : initFile) + " with " + args[1] + " threads.");
+        System.err.println("Runtimes are in nanoseconds.");
+        final long start = System.nanoTime();
 
-        printSCCs(sccs);
+        // Get the number of threads on which we should run the algorithm.
+        final int numCores = ConcurrentFastSCC.requiredProcessors(Integer.parseInt(args[1]));
+        if (Integer.parseInt(args[1]) == -1) {
+            options.put("plan", "true");
+        }
+        final RunReport report = new RunReport(args[0], numCores);
+        // The engine owns the threads and the union find datastructure to maintain SCCs.
+        final ContentionPolicy policy = ContentionPolicy.parse(options.getOrDefault("backoff", "spinYield"));
+        final PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        try (SccEngine engine = new SccEngine(numCores, policy)) {
+            if (options.containsKey("pipeline")) {
+                pipeline(args[0], initFile, Integer.parseInt(options.get("pipeline")), engine, report, out);
+            } else {
+                process(load(args[0], initFile, options.containsKey("raw"), engine, report), engine, options, report, out);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
 
         final long duration = System.nanoTime() - start;
         System.err.println("Total runtime: " + duration);
+
+        report.phase("total", duration);
+        report.finish();
+        if (options.containsKey("report")) {
+            try {
+                report.write(options.get("report"));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
     }
 }
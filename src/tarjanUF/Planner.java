@@ -0,0 +1,128 @@
+package tarjanUF;
+
+// Planner picks the number of searching workers and the way to search a graph from a few cheap
+// statistics, for runs that leave the number of threads to the program (THREADS = -1):
+// - the size of the graph, as a worker needs enough work to pay for its share of the
+//   contention on the union find,
+// - the out-degrees of a sample of nodes: their mean and the share of nodes without arcs,
+//   which are trivial SCCs a trim would remove,
+// - the weakly connected components: several large ones are searched apart (SplitSearch),
+//   a single one covering the graph with few trivial nodes and some arcs per node hints at
+//   a giant SCC, on which every worker ends up uniting the same sets. The workers are then
+//   capped at GIANT_SCC_THREADS, beyond which such graphs got slower in our benchmarks.
+// Large graphs are compressed to save memory bandwidth.
+// The plan only sets the start of the run: SccEngine.setAdaptive lets the engine stop
+// workers which mostly spin.
+public class Planner {
+
+    // A worker is given at least this many nodes + arcs.
+    public static final long WORK_PER_THREAD = 100000;
+    // Number of workers beyond which a giant SCC stops scaling.
+    public static final int GIANT_SCC_THREADS = 8;
+    // Number of nodes whose degree is sampled.
+    public static final int SAMPLE = 4096;
+    // Graphs with at least this many arcs are compressed.
+    public static final long COMPRESS_ARCS = 1L << 24;
+
+    private final SccEngine engine;
+    // Statistics of the last graph planned.
+    private double meanDegree;
+    private int maxDegree;
+    private double trivialShare;
+    private WeakComponents components;
+    private int largestPiece;
+    // The plan.
+    private int threads;
+    private boolean split;
+    private boolean compress;
+    private boolean giantSCC;
+
+    // Constructor.
+    // The plan uses at most the threads of `engine`, which also computes the statistics.
+    public Planner(final SccEngine engine) {
+        this.engine = engine;
+    }
+
+    public double getMeanDegree() {
+        return this.meanDegree;
+    }
+
+    public int getMaxDegree() {
+        return this.maxDegree;
+    }
+
+    public double getTrivialShare() {
+        return this.trivialShare;
+    }
+
+    // getComponents returns the weakly connected components of the graph, to be given to SplitSearch.
+    public WeakComponents getComponents() {
+        return this.components;
+    }
+
+    public int getLargestPiece() {
+        return this.largestPiece;
+    }
+
+    public int getThreads() {
+        return this.threads;
+    }
+
+    public boolean isSplit() {
+        return this.split;
+    }
+
+    public boolean isCompress() {
+        return this.compress;
+    }
+
+    public boolean isGiantSCC() {
+        return this.giantSCC;
+    }
+
+    // run plans the search of `graph`.
+    public void run(final Graph graph) {
+        final long start = System.nanoTime();
+
+        final int n = graph.N();
+        final long arcs = graph.numArcs();
+
+        // Degrees of every (n / SAMPLE)-th node.
+        final int sample = Math.min(n, SAMPLE);
+        long sum = 0;
+        int trivial = 0;
+        this.maxDegree = 0;
+        for (int i = 0; i < sample; i++) {
+            final int degree = graph.degree((int) ((long) i * n / sample));
+            sum += degree;
+            this.maxDegree = Math.max(this.maxDegree, degree);
+            if (degree == 0) {
+                trivial++;
+            }
+        }
+        this.meanDegree = sample == 0 ? 0 : (double) sum / sample;
+        this.trivialShare = sample == 0 ? 0 : (double) trivial / sample;
+
+        this.components = WeakComponents.compute(graph, engine);
+        this.largestPiece = 0;
+        for (int p = 0; p < components.count(); p++) {
+            this.largestPiece = Math.max(this.largestPiece, components.size(p));
+        }
+
+        final long work = n + arcs;
+        this.threads = (int) Math.max(1, Math.min(engine.getNumWorkers(), (work + WORK_PER_THREAD - 1) / WORK_PER_THREAD));
+        // A tenth of the graph outside the largest piece is worth searching apart.
+        this.split = largestPiece < n - n / 10;
+        this.giantSCC = !split && trivialShare < 0.05 && meanDegree >= 2;
+        if (giantSCC) {
+            this.threads = Math.min(this.threads, GIANT_SCC_THREADS);
+        }
+        this.compress = arcs >= COMPRESS_ARCS;
+
+        final long duration = System.nanoTime() - start;
+        System.err.println("Plan: " + threads + " workers" + (split ? ", split" : "") + (compress ? ", compressed" : "")
+                + " (mean degree " + String.format("%.2f", meanDegree) + ", " + components.count()
+                + " pieces, largest " + largestPiece + (giantSCC ? ", giant SCC suspected" : "") + ").");
+        System.err.println("Runtime for plan: " + duration);
+    }
+}
@@ -0,0 +1,147 @@
+package tarjanUF;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Preprocessor {
+
+    private final SccEngine engine;
+    // Statistics of the last run.
+    private final LongAdder selfLoops;
+    private final LongAdder duplicateArcs;
+    private final LongAdder keptArcs;
+    private int prunedNodes;
+    // renumbering maps the nodes of the pruned graph to the original ones.
+    // It is null if no node was pruned.
+    private Renumbering renumbering;
+
+    // Constructor.
+    // The threads of `engine` are used for every stage.
+    public Preprocessor(final SccEngine engine) {
+        this.engine = engine;
+        this.selfLoops = new LongAdder();
+        this.duplicateArcs = new LongAdder();
+        this.keptArcs = new LongAdder();
+    }
+
+    // run removes self-loops, removes duplicate arcs and prunes the nodes not reachable
+    // from `initNodes`. The nodes of the returned graph are numbered contiguously, use
+    // `getRenumbering` to map them (and the init nodes) back to the original graph.
+    // The adjacency lists of `graph` are modified in place.
+    public Graph run(final Graph graph, final List<Integer> initNodes) {
+        final long start = System.nanoTime();
+
+        selfLoops.reset();
+        duplicateArcs.reset();
+        keptArcs.reset();
+        simplify(graph);
+        final Graph result = prune(graph, initNodes);
+
+        final long duration = System.nanoTime() - start;
+        System.err.println("Preprocess: removed " + selfLoops.sum() + " self-loops, "
+                + duplicateArcs.sum() + " duplicate arcs and pruned " + prunedNodes
+                + " unreachable nodes. " + result.N() + " nodes and " + keptArcs.sum() + " arcs are left.");
+        System.err.println("Runtime for preprocess: " + duration);
+        return result;
+    }
+
+    public long getSelfLoops() {
+        return selfLoops.sum();
+    }
+
+    public long getDuplicateArcs() {
+        return duplicateArcs.sum();
+    }
+
+    public long getKeptArcs() {
+        return keptArcs.sum();
+    }
+
+    public int getPrunedNodes() {
+        return prunedNodes;
+    }
+
+    public Renumbering getRenumbering() {
+        return renumbering;
+    }
+
+    // simplify sorts every adjacency list, drops the duplicates and moves the
+    // self-loop (if any) into the flag of the node.
+    private void simplify(final Graph graph) {
+        engine.forEachRange(graph.N(), (from, to) -> {
+            long loops = 0;
+            long duplicates = 0;
+            long kept = 0;
+            int[] scratch = new int[16];
+            for (int v = from; v < to; v++) {
+                final GraphNode node = graph.get(v);
+                final List<Integer> arcs = node.getArcs();
+                if (scratch.length < arcs.size()) {
+                    scratch = new int[2 * arcs.size()];
+                }
+                int count = 0;
+                for (int w: arcs) {
+                    scratch[count++] = w;
+                }
+                Arrays.sort(scratch, 0, count);
+
+                final List<Integer> simplified = new ArrayList<Integer>(count);
+                for (int i = 0; i < count; i++) {
+                    final int w = scratch[i];
+                    if (i > 0 && scratch[i - 1] == w) {
+                        duplicates++;
+                    } else if (w == v) {
+                        node.setSelfLoop(true);
+                        loops++;
+                    } else {
+                        simplified.add(w);
+                    }
+                }
+                kept += simplified.size();
+                node.setArcs(simplified);
+            }
+            selfLoops.add(loops);
+            duplicateArcs.add(duplicates);
+            keptArcs.add(kept);
+        });
+    }
+
+    // prune finds the nodes reachable from `initNodes` with a parallel breadth first search
+    // and returns the subgraph induced by them.
+    private Graph prune(final Graph graph, final List<Integer> initNodes) {
+        final int n = graph.N();
+        final Reachability reachability = new Reachability(graph, engine);
+        final int[] sources = new int[initNodes.size()];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = initNodes.get(i);
+        }
+        final int total = reachability.visit(sources, sources.length, null);
+
+        this.prunedNodes = n - total;
+        if (this.prunedNodes == 0) {
+            this.renumbering = null;
+            return graph;
+        }
+
+        // Keep the relative order of the reachable nodes.
+        final int[] oldId = new int[total];
+        int k = 0;
+        for (int v = 0; v < n; v++) {
+            if (reachability.isReached(v)) {
+                oldId[k++] = v;
+            }
+        }
+        this.renumbering = new Renumbering(oldId, n);
+        // Arcs of the pruned nodes do not count anymore.
+        long dropped = 0;
+        for (int v = 0; v < n; v++) {
+            if (!reachability.isReached(v)) {
+                dropped += graph.get(v).getArcs().size();
+            }
+        }
+        keptArcs.add(-dropped);
+        return this.renumbering.apply(graph, engine);
+    }
+}
@@ -0,0 +1,97 @@
+package tarjanUF;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class Reachability {
+
+    // Frontiers smaller than this are expanded by the calling thread alone
+    // as handing them to the engine costs more than the expansion itself.
+    private static final int PARALLEL_FRONTIER = 1024;
+
+    private final Graph graph;
+    private final SccEngine engine;
+    // reached[v] is 1 once `v` is known to be reachable from one of the sources so far.
+    private final AtomicIntegerArray reached;
+    private int count;
+
+    // Constructor.
+    public Reachability(final Graph graph, final SccEngine engine) {
+        this.graph = graph;
+        this.engine = engine;
+        this.reached = new AtomicIntegerArray(graph.N());
+        this.count = 0;
+    }
+
+    public boolean isReached(final int v) {
+        return reached.get(v) != 0;
+    }
+
+    // getCount returns the number of nodes reached so far.
+    public int getCount() {
+        return count;
+    }
+
+    // visit marks every node reachable from `sources` with a level synchronous
+    // breadth first search. Nodes reached by earlier calls are not expanded again.
+    // If `order` is not null the newly reached nodes are appended to it level by level.
+    // Returns the number of newly reached nodes.
+    public int visit(final int[] sources, final int numSources, final IntStack order) {
+        int[] frontier = new int[numSources];
+        int size = 0;
+        for (int i = 0; i < numSources; i++) {
+            if (reached.compareAndSet(sources[i], 0, 1)) {
+                frontier[size++] = sources[i];
+            }
+        }
+
+        int total = 0;
+        while (size > 0) {
+            total += size;
+            if (order != null) {
+                for (int i = 0; i < size; i++) {
+                    order.push(frontier[i]);
+                }
+            }
+            final int[] current = frontier;
+            final IntStack[] next;
+            if (size < PARALLEL_FRONTIER) {
+                next = new IntStack[] { expand(current, 0, size) };
+            } else {
+                // forEachRange gives every worker at most one range.
+                final int workers = engine.getNumWorkers();
+                final IntStack[] ranges = new IntStack[workers];
+                engine.forEachRange(size, (range, from, to) -> {
+                    ranges[range] = expand(current, from, to);
+                });
+                next = ranges;
+            }
+
+            size = 0;
+            for (IntStack local: next) {
+                size += local == null ? 0 : local.size();
+            }
+            frontier = new int[size];
+            int k = 0;
+            for (IntStack local: next) {
+                while (local != null && !local.empty()) {
+                    frontier[k++] = local.pop();
+                }
+            }
+        }
+        count += total;
+        return total;
+    }
+
+    // expand returns the successors of current[from..to) reached for the first time.
+    private IntStack expand(final int[] current, final int from, final int to) {
+        final IntStack local = new IntStack();
+        for (int i = from; i < to; i++) {
+            for (int w: graph.get(current[i]).getArcs()) {
+                if (reached.get(w) == 0 && reached.compareAndSet(w, 0, 1)) {
+                    local.push(w);
+                }
+            }
+        }
+        return local;
+    }
+}
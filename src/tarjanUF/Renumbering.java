@@ -0,0 +1,194 @@
+package tarjanUF;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Renumbering {
+
+    // Order decides how the new ids are assigned. It can take the following values:
+    // 1. bfs:
+    //      Ids are given in the breadth first order starting from the init nodes.
+    //      Successors of a node end up next to each other and close to the node.
+    // 2. rcm:
+    //      Reverse Cuthill-McKee, i.e., a breadth first order in which the successors of a
+    //      node are visited in increasing order of degree, reversed at the end.
+    //      This tends to reduce the bandwidth of the adjacency matrix even further.
+    public enum Order {
+        bfs, rcm;
+    };
+
+    // newId[old] is the id given to the node `old` of the original graph.
+    private final int[] newId;
+    // oldId[new] is the original id of the node `new` of the renumbered graph.
+    private final int[] oldId;
+
+    // Constructors.
+    // `oldId` must be a permutation of [0..oldId.length - 1].
+    public Renumbering(final int[] oldId) {
+        this(oldId, oldId.length);
+    }
+
+    // `oldId` must contain distinct ids from [0..n - 1]. Nodes not present in `oldId`
+    // are dropped by `apply`, hence no arc of a kept node should point to them.
+    public Renumbering(final int[] oldId, final int n) {
+        this.oldId = oldId;
+        this.newId = new int[n];
+        Arrays.fill(this.newId, -1);
+        for (int i = 0; i < oldId.length; i++) {
+            this.newId[oldId[i]] = i;
+        }
+    }
+
+    // `newId` is shared by renumberings of disjoint sets of nodes, e.g., the pieces of a graph,
+    // so that each of them does not allocate one over the whole graph. Only the entries of the
+    // nodes in `oldId` are set here, the others belong to the other sets.
+    Renumbering(final int[] oldId, final int[] newId) {
+        this.oldId = oldId;
+        this.newId = newId;
+        for (int i = 0; i < oldId.length; i++) {
+            this.newId[oldId[i]] = i;
+        }
+    }
+
+    // compute finds a locality improving permutation of the nodes of `graph`.
+    public static Renumbering compute(final Graph graph, final List<Integer> initNodes, final Order order) {
+        final long start = System.nanoTime();
+
+        final int n = graph.N();
+        final int[] oldId = new int[n];
+        final boolean[] seen = new boolean[n];
+        // oldId doubles as the queue of the breadth first search.
+        int head = 0;
+        int tail = 0;
+        // Start from the init nodes and then from every node not reachable from them.
+        int nextInit = 0;
+        int nextSource = 0;
+        int[] scratch = new int[16];
+
+        while (tail < n) {
+            if (head == tail) {
+                int source;
+                if (nextInit < initNodes.size()) {
+                    source = initNodes.get(nextInit++);
+                } else {
+                    while (seen[nextSource]) {
+                        nextSource++;
+                    }
+                    source = nextSource;
+                }
+                if (seen[source]) {
+                    continue;
+                }
+                seen[source] = true;
+                oldId[tail++] = source;
+            }
+
+            final int v = oldId[head++];
+            final List<Integer> arcs = graph.get(v).getArcs();
+            // Collect the unseen successors of `v`.
+            if (scratch.length < arcs.size()) {
+                scratch = new int[2 * arcs.size()];
+            }
+            int count = 0;
+            for (int w: arcs) {
+                if (!seen[w]) {
+                    seen[w] = true;
+                    scratch[count++] = w;
+                }
+            }
+            if (order == Order.rcm) {
+                sortByDegree(graph, scratch, count);
+            }
+            System.arraycopy(scratch, 0, oldId, tail, count);
+            tail += count;
+        }
+
+        if (order == Order.rcm) {
+            for (int i = 0, j = n - 1; i < j; i++, j--) {
+                final int t = oldId[i];
+                oldId[i] = oldId[j];
+                oldId[j] = t;
+            }
+        }
+
+        final long duration = System.nanoTime() - start;
+        System.err.println("Runtime for renumbering: " + duration);
+        return new Renumbering(oldId);
+    }
+
+    // sortByDegree sorts the first `count` nodes of `nodes` in increasing order of out degree.
+    private static void sortByDegree(final Graph graph, final int[] nodes, final int count) {
+        // Pack (degree, node) in a long so that a primitive sort can be used.
+        final long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) graph.get(nodes[i]).getArcs().size() << 32) | nodes[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < count; i++) {
+            nodes[i] = (int) keys[i];
+        }
+    }
+
+    // newId returns the id of the original node `id` in the renumbered graph.
+    public int newId(final int id) {
+        return this.newId[id];
+    }
+
+    // original returns the id in the original graph of the renumbered node `id`.
+    public int original(final int id) {
+        return this.oldId[id];
+    }
+
+    // then returns the renumbering which first applies this one and then `next`.
+    // `next` must renumber the graph produced by this one.
+    public Renumbering then(final Renumbering next) {
+        final int[] composed = new int[next.oldId.length];
+        for (int i = 0; i < composed.length; i++) {
+            composed[i] = this.oldId[next.oldId[i]];
+        }
+        return new Renumbering(composed, this.newId.length);
+    }
+
+    // apply returns a new graph in which every node and arc is renumbered.
+    // Nodes are created in the new order, in parallel, so that neighbouring ids
+    // also end up close to each other in memory.
+    public Graph apply(final Graph graph, final SccEngine engine) {
+        final long start = System.nanoTime();
+
+        final int n = oldId.length;
+        final GraphNode[] nodes = new GraphNode[n];
+        engine.forEachRange(n, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                final GraphNode old = graph.get(oldId[i]);
+                final List<Integer> arcs = old.getArcs();
+                final GraphNode node = new GraphNode(i);
+                node.setSelfLoop(old.hasSelfLoop());
+                final List<Integer> renumbered = new ArrayList<Integer>(arcs.size());
+                for (int w: arcs) {
+                    renumbered.add(newId[w]);
+                }
+                node.setArcs(renumbered);
+                nodes[i] = node;
+            }
+        });
+
+        final Graph result = new Graph(graph.getName().orElse(null));
+        for (GraphNode node: nodes) {
+            result.addNode(node);
+        }
+
+        final long duration = System.nanoTime() - start;
+        System.err.println("Runtime for applying renumbering: " + duration);
+        return result;
+    }
+
+    // apply renumbers a list of nodes, e.g., the init nodes.
+    public List<Integer> apply(final List<Integer> ids) {
+        final List<Integer> result = new ArrayList<Integer>(ids.size());
+        for (int id: ids) {
+            result.add(newId[id]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+package tarjanUF;
+
+import java.util.Arrays;
+
+// RootCache remembers what a worker already learnt from the union find and can never change
+// again, so that it does not read the shared (and heavily written) UFNodes once more:
+// - the nodes found in a dead set, a dead set staying dead,
+// - the pairs of nodes found in the same set, sets only ever being merged.
+// Both are direct-mapped tables of 2^bits entries indexed by a hash of the node (pair); a new
+// entry simply overwrites the one in its slot. A cache is private to its worker and only valid
+// for the search it was filled in, hence `clear` must be called before the next one.
+// Ids are those of the union find, [1..N]. 0 marks an empty slot.
+public class RootCache {
+
+    public static final int DEFAULT_BITS = 12;
+
+    private final int[] dead;
+    private final long[] pairs;
+    private final int shift;
+    // hits counts the union find lookups saved since the last `clear`.
+    private long hits;
+
+    // Constructors.
+    public RootCache() {
+        this(DEFAULT_BITS);
+    }
+
+    public RootCache(final int bits) {
+        assert bits > 0 && bits < 31;
+        this.dead = new int[1 << bits];
+        this.pairs = new long[1 << bits];
+        this.shift = 32 - bits;
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    // clear forgets everything, to be called before a new search.
+    public void clear() {
+        Arrays.fill(dead, 0);
+        Arrays.fill(pairs, 0);
+        this.hits = 0;
+    }
+
+    // isDead returns true if "node a" is known to be in a dead set.
+    public boolean isDead(final int a) {
+        if (dead[slot(a)] == a) {
+            hits++;
+            return true;
+        }
+        return false;
+    }
+
+    // addDead records that "node a" is in a dead set.
+    public void addDead(final int a) {
+        dead[slot(a)] = a;
+    }
+
+    // sameSet returns true if "node a" and "node b" are known to be in the same set.
+    public boolean sameSet(final int a, final int b) {
+        if (pairs[slot(a * 31 + b)] == key(a, b)) {
+            hits++;
+            return true;
+        }
+        return false;
+    }
+
+    // addSameSet records that "node a" and "node b" are in the same set.
+    public void addSameSet(final int a, final int b) {
+        pairs[slot(a * 31 + b)] = key(a, b);
+    }
+
+    private static long key(final int a, final int b) {
+        return ((long) a << 32) | b;
+    }
+
+    // slot spreads `h` over the table (Fibonacci hashing).
+    private int slot(final int h) {
+        return (h * 0x9E3779B9) >>> shift;
+    }
+}
@@ -0,0 +1,181 @@
+package tarjanUF;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// RunReport collects the measurements of a single run in a machine readable form:
+// per phase runtimes, thread count, graph statistics, GC time and peak heap.
+public class RunReport {
+
+    private final String graph;
+    private final int threads;
+    // phases maps the name of a phase to its runtime in nanoseconds, in the order of execution.
+    private final Map<String, Long> phases;
+    // stats holds the counters of the run, e.g., the number of nodes.
+    private final Map<String, Long> stats;
+    // memory is false for a run sharing the JVM with others, e.g., in a Batch: the GC time and
+    // the heap peaks are those of the whole process then, hence they are neither reset nor reported.
+    private final boolean memory;
+    private final long gcStart;
+    private long gcMillis;
+    private long peakHeap;
+
+    // Constructors.
+    // Starts measuring the GC time and the peak heap usage.
+    public RunReport(final String graph, final int threads) {
+        this(graph, threads, true);
+    }
+
+    // The GC time and the peak heap usage are only measured if `memory` is true.
+    public RunReport(final String graph, final int threads, final boolean memory) {
+        this.graph = graph;
+        this.threads = threads;
+        this.phases = new LinkedHashMap<String, Long>();
+        this.stats = new LinkedHashMap<String, Long>();
+        this.memory = memory;
+        if (memory) {
+            for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    pool.resetPeakUsage();
+                }
+            }
+        }
+        this.gcStart = memory ? gcMillis() : 0;
+    }
+
+    // gcMillis returns the total time spent in garbage collection so far.
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc: ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    // phase records the runtime of phase `name`. Times of a repeated phase are added.
+    public void phase(final String name, final long nanos) {
+        phases.merge(name, nanos, Long::sum);
+    }
+
+    public void stat(final String name, final long value) {
+        stats.put(name, value);
+    }
+
+    public Long getPhase(final String name) {
+        return phases.get(name);
+    }
+
+    // finish stops measuring the GC time and the peak heap usage.
+    public void finish() {
+        if (!memory) {
+            return;
+        }
+        this.gcMillis = gcMillis() - gcStart;
+        long peak = 0;
+        for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        this.peakHeap = peak;
+    }
+
+    // write stores the report in `filename`, as JSON if it ends with ".json" and as CSV otherwise.
+    public void write(final String filename) throws IOException {
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(filename)))) {
+            if (filename.endsWith(".json")) {
+                out.println(toJson());
+            } else {
+                writeCsv(out, Arrays.asList(this));
+            }
+        }
+    }
+
+    // writeCsv writes `reports` as a CSV table. Runs might not share all the phases
+    // (e.g. only some had to compute seeds), hence the columns are the union of all of
+    // them and a missing value is left empty. The GC time and peak heap columns are only
+    // written if every report measured them.
+    public static void writeCsv(final PrintWriter out, final List<RunReport> reports) {
+        final Set<String> phaseNames = new LinkedHashSet<String>();
+        final Set<String> statNames = new LinkedHashSet<String>();
+        boolean memory = true;
+        for (RunReport report: reports) {
+            phaseNames.addAll(report.phases.keySet());
+            statNames.addAll(report.stats.keySet());
+            memory &= report.memory;
+        }
+        final List<String> header = new ArrayList<String>(Arrays.asList("graph", "threads"));
+        if (memory) {
+            header.add("gcMillis");
+            header.add("peakHeapBytes");
+        }
+        for (String name: phaseNames) {
+            header.add(name + "Nanos");
+        }
+        header.addAll(statNames);
+        out.println(String.join(",", header));
+
+        for (RunReport report: reports) {
+            final StringBuilder sb = new StringBuilder();
+            sb.append(report.graph.replace(",", "_")).append(',').append(report.threads);
+            if (memory) {
+                sb.append(',').append(report.gcMillis).append(',').append(report.peakHeap);
+            }
+            for (String name: phaseNames) {
+                sb.append(',');
+                if (report.phases.containsKey(name)) {
+                    sb.append(report.phases.get(name));
+                }
+            }
+            for (String name: statNames) {
+                sb.append(',');
+                if (report.stats.containsKey(name)) {
+                    sb.append(report.stats.get(name));
+                }
+            }
+            out.println(sb);
+        }
+    }
+
+    public String toJson() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("{\"graph\": \"").append(graph.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        sb.append(", \"threads\": ").append(threads);
+        sb.append(", \"phases\": {");
+        appendJson(sb, phases);
+        sb.append("}, \"stats\": {");
+        appendJson(sb, stats);
+        sb.append('}');
+        if (memory) {
+            sb.append(", \"gcMillis\": ").append(gcMillis);
+            sb.append(", \"peakHeapBytes\": ").append(peakHeap);
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static void appendJson(final StringBuilder sb, final Map<String, Long> values) {
+        boolean first = true;
+        for (Map.Entry<String, Long> e: values.entrySet()) {
+            if (!first) {
+                sb.append(", ");
+            }
+            sb.append('"').append(e.getKey()).append("\": ").append(e.getValue());
+            first = false;
+        }
+    }
+
+}
@@ -1,75 +1,108 @@
 package tarjanUF;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
-import java.util.Stack;
-
 import tarjanUF.UF.PickStatus;
 import tarjanUF.UF.ClaimStatus;
 
-public class SCCWorker implements Runnable {
-
-    private final Graph graph;
-    private final Map<Long, Integer> workerMap;
-    private final AtomicInteger workerCount;
-    // workerId will be assigned in the `run` method since
-    // the worker executing can be known only from there.
-    private int workerId;
-    // nodeId denotes the node from where the DFS is to be started.
-    private int nodeId;
-    private UF unionfind;
+public class SCCWorker {
+
+    // workerId is the unique integer in [1..#workers] identifying this worker.
+    // It stays the same across runs as a worker is bound to a single thread of the engine.
+    private final int workerId;
     // Used to eliminate recursion.
-    private Stack<Integer> recursionStack;
+    private final IntStack recursionStack;
     // The so called tarjanStack in Tarjan's sequential algorithm.
-    private Stack<Integer> rootStack;
-
-    public SCCWorker(final Graph graph,
-                     final Map<Long, Integer> workerMap,
-                     final AtomicInteger workerCount,
-                     final int nodeId,
-                     UF unionfind) {
-        this.graph = graph;
-        this.workerMap = workerMap;
-        this.workerCount = workerCount;
-        this.nodeId = nodeId;
-        this.unionfind = unionfind;
-        this.recursionStack = new Stack<Integer>();
-        this.rootStack = new Stack<Integer>();
+    private final IntStack rootStack;
+    // cursor iterates over the arcs of `cursorGraph`. It is kept as long as
+    // the worker is given the same graph.
+    private ArcCursor cursor;
+    private Digraph cursorGraph;
+    // cache holds what the worker learnt about the union find during the current search.
+    private final RootCache cache;
+    // stopped makes the worker give up its current run, see `stop`.
+    private volatile boolean stopped;
+
+    public SCCWorker(final int workerId) {
+        this.workerId = workerId;
+        this.recursionStack = new IntStack();
+        this.rootStack = new IntStack();
+        this.cache = new RootCache();
+    }
+
+    public int getWorkerId() {
+        return this.workerId;
     }
 
-    @Override
-    public void run() {
-        // Assign a unique integer to this worker or if already assigned set workerId to that.
-        if (workerMap.containsKey(Thread.currentThread().getId())) {
-            this.workerId = workerMap.get(Thread.currentThread().getId());
-        } else {
-            this.workerId = workerCount.incrementAndGet();
-            workerMap.put(Thread.currentThread().getId(), this.workerId);
+    // stop makes the worker give up its run at the next arc it explores. This is safe at any
+    // time: the sets it leaves on its stack are live and whichever worker reaches them next
+    // explores them as its own, hence the search stays complete as long as some worker searches
+    // the roots it gave up on again.
+    public void stop() {
+        this.stopped = true;
+    }
+
+    // forget clears what the worker learnt about the union find, to be called before a new search.
+    public void forget() {
+        cache.clear();
+    }
+
+    // getCacheHits returns the union find lookups saved by the cache since the search started.
+    public long getCacheHits() {
+        return cache.getHits();
+    }
+
+    // resume lets the worker run again after `stop`.
+    public void resume() {
+        this.stopped = false;
+    }
+
+    public boolean isStopped() {
+        return this.stopped;
+    }
+
+    // run explores `graph` starting from `nodeId` and records the SCCs found in `unionfind`.
+    // The arcs the DFS goes through are recorded in `lasso` and the nodes it goes to are published
+    // on `board`, unless they are null.
+    // The stacks are kept between calls so that no allocation is required for later runs.
+    // Returns false if the worker was stopped before it was done with `nodeId`.
+    public boolean run(final Digraph graph, final UF unionfind, final int nodeId, final Lasso lasso,
+                       final WorkBoard board) {
+        recursionStack.clear();
+        rootStack.clear();
+        if (cursorGraph != graph) {
+            // Randomize the exploration of nodes for different workers.
+            cursor = graph.cursor(workerId);
+            cursorGraph = graph;
         }
+        // exits makes the worker record the arcs leaving its sets, see UF.markExit.
+        final boolean exits = unionfind.tracksExits();
         // Let the worker make claim on the intial node so that it can start exploring.
         unionfind.makeClaim(nodeId + 1, workerId);
+        if (lasso != null) {
+            lasso.root(nodeId);
+        }
 
         PickStatus picked;
-        // `ei` is the index from where we should start exploring the arcs of the node `vp`.
-        int v, vp, w, ei, root;
-        int random_ei;
+        // `cursor` tells from where we should continue exploring the arcs of the node `vp`.
+        int v, vp, w, root;
         ClaimStatus claimed;
         // Used to simulate return from a function.
         boolean backtrack = false;
 
-        v = this.nodeId;
+        v = nodeId;
 
-        List<Integer> arcs = null;
         START: while (true) {
             // This indicates a new DFS call in the recursion.
             if (!backtrack) {
                 rootStack.push(v);
+                if (board != null) {
+                    board.publish(workerId, v);
+                }
             }
 
             LOOP: while (true) {
+                if (stopped) {
+                    return false;
+                }
                 if (!backtrack) {
                     // Some other worker might have united the new root and old root.
                     // Exploit that!
@@ -87,12 +120,15 @@ public class SCCWorker implements Runnable {
                     // The listLive element.
                     vp = p.getValue() - 1;
                     // Initially start from starting of list.
-                    ei = 0;
+                    cursor.start(vp);
                 } else {
                     // Restore the recursion state when backtracking.
+                    // The cursor continues after the arc we recursed on.
+                    // `w` is the node we return from.
+                    w = v;
                     v = recursionStack.pop();
-                    ei = recursionStack.pop() + 1;
-                    vp = recursionStack.pop();
+                    cursor.restore(recursionStack);
+                    vp = cursor.node();
                     // Do not backtrack again. We might have to explore further.
                     backtrack = false;
                     // Some other worker can make the node `v` dead.
@@ -101,29 +137,47 @@ public class SCCWorker implements Runnable {
                         unionfind.removeFromList(vp + 1);
                         continue LOOP;
                     }
+                    // The arc to `w` leaves the set of `v` if the set of `w` was found to be an SCC.
+                    if (exits && unionfind.isDead(w + 1)) {
+                        unionfind.markExit(v + 1, w + 1);
+                    }
                 }
 
-                arcs = graph.get(vp).getArcs();
-                for (; ei < arcs.size(); ei++) {
-                    // Randomized the exploration of node `vp` for different workers.
-                    random_ei = (ei + workerId) % arcs.size();
-                    w = arcs.get(random_ei);
-                    // Self loop.
-                    if (w == vp) {
+                while (cursor.hasNext()) {
+                    // `vp` stays live, the arcs left are explored by whoever picks it next.
+                    if (stopped) {
+                        return false;
+                    }
+                    w = cursor.next();
+                    // A node known to be dead, or to be in the set of `v` already, needs no claim.
+                    if (cache.sameSet(w + 1, v + 1)) {
                         continue;
                     }
-                    // Else let worker obatin a claim on `w`.
+                    if (cache.isDead(w + 1)) {
+                        if (exits) {
+                            unionfind.markExit(v + 1, w + 1);
+                        }
+                        continue;
+                    }
+                    // Let worker obatin a claim on `w`. A self loop needs no special case:
+                    // `vp` is in the set of `v` hence the claim is either found or dead.
                     claimed = unionfind.makeClaim(w + 1, workerId);
 
                     // If the node `w` is dead we should not explore it.
                     if (claimed == ClaimStatus.claimDead) {
+                        cache.addDead(w + 1);
+                        if (exits) {
+                            unionfind.markExit(v + 1, w + 1);
+                        }
                         continue;
                     } else if (claimed == ClaimStatus.claimSuccess) {
                         // We found a new node. Explore it!
+                        if (lasso != null) {
+                            lasso.reached(vp, w);
+                        }
                         // Push the caller-saved values into the stack and
                         // continue with new root `w`.
-                        recursionStack.push(vp);
-                        recursionStack.push(ei);
+                        cursor.save(recursionStack);
                         recursionStack.push(v);
                         v = w;
                         continue START;
@@ -131,10 +185,14 @@ public class SCCWorker implements Runnable {
                         // We received a claimFound meaning that `w` is already present
                         // in the tarjanStack of `v`. This implies that we found a cycle.
                         // Exploit it!!!
+                        if (lasso != null) {
+                            lasso.closed(vp, w);
+                        }
                         while (!unionfind.sameSet(w + 1, v + 1)) {
                             root = rootStack.pop();
                             unionfind.unite(rootStack.peek() + 1, root + 1);
                         }
+                        cache.addSameSet(w + 1, v + 1);
                     }
                 }
 
@@ -154,6 +212,7 @@ public class SCCWorker implements Runnable {
                 break;
             }
         }
+        return true;
     }
 
 }
@@ -0,0 +1,742 @@
+package tarjanUF;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public class SccEngine implements AutoCloseable {
+
+    // The contention of an adaptive run is checked every MONITOR_MILLIS milliseconds.
+    public static final long MONITOR_MILLIS = 10;
+    // The workers are deemed to mostly spin when they wait for more than SHRINK_ROUNDS rounds
+    // each between two checks: half of them are stopped then.
+    public static final long SHRINK_ROUNDS = 2000;
+
+    // A worker with nothing to join waits this long before looking at the WorkBoard again.
+    public static final long IDLE_PARK_NANOS = 20000;
+
+    // The targets of `searchTargets` are checked every TARGET_POLL_NANOS nanoseconds.
+    public static final long TARGET_POLL_NANOS = 100000;
+
+    // RangeTask is a piece of work over the indices [from, to).
+    public interface RangeTask {
+        void run(int from, int to);
+    }
+
+    // IndexedRangeTask is a piece of work over the indices [from, to), the range number `range` of
+    // those `forEachRange` cuts, counted from 0 in increasing order of indices.
+    public interface IndexedRangeTask {
+        void run(int range, int from, int to);
+    }
+
+    // BottomListener is given the bottom SCCs found by `searchBottom`, one at a time.
+    public interface BottomListener {
+        // bottom is called with the members of a bottom SCC in increasing order.
+        void bottom(int[] members);
+    }
+
+    // numWorkers is the number of threads owned by this engine.
+    private final int numWorkers;
+    // policy decides how workers wait on each other's locks.
+    private final ContentionPolicy policy;
+    // executor holds exactly `numWorkers` threads for the whole lifetime of the engine.
+    private final ExecutorService executor;
+    // workers[i] is the worker with id i + 1 along with its scratch stacks.
+    private final SCCWorker[] workers;
+    // unionfind is reused across runs and grown only when a larger graph arrives.
+    private UF unionfind;
+    // dirty is the number of UFNodes touched by the last run which needs a reset.
+    private int dirty;
+    // Runtimes of the phases of the last run in nanoseconds.
+    private long resetNanos;
+    private long searchNanos;
+    private long labelNanos;
+    // trackLasso makes the workers record the arcs they go through in a Lasso.
+    private boolean trackLasso;
+    // lasso is the Lasso of the last run, null if not tracked.
+    private Lasso lasso;
+    // checkpoint saves the dead sets while searching, `resume` restores them first.
+    private Checkpoint checkpoint;
+    private boolean resume;
+    // activeWorkers is the number of workers searching, the first ones; the other threads only
+    // help with the parallel phases. `adaptive` lets a run stop workers while they mostly spin.
+    private int activeWorkers;
+    private boolean adaptive;
+    // pickMode is how the union find of the following runs walks its lists.
+    private UF.PickMode pickMode;
+    // shareWork lets the workers done with their roots join the sets of the others.
+    private boolean shareWork;
+    // runningWorkers is the number of workers still active at the end of the last run.
+    private volatile int runningWorkers;
+    // cancelled stops the current run, see `cancel`.
+    private volatile boolean cancelled;
+
+    // Constructors.
+    // Starts `numWorkers` threads which stay alive until `close` is called.
+    public SccEngine(final int numWorkers) {
+        this(numWorkers, new ContentionPolicy());
+    }
+
+    public SccEngine(final int numWorkers, final ContentionPolicy policy) {
+        assert numWorkers > 0;
+        this.numWorkers = numWorkers;
+        this.policy = policy;
+        final AtomicInteger threadCount = new AtomicInteger(0);
+        this.executor = Executors.newFixedThreadPool(numWorkers, r -> {
+            final Thread thread = new Thread(r, "scc-worker-" + threadCount.incrementAndGet());
+            // Do not keep the JVM alive if the engine was never closed.
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workers = new SCCWorker[numWorkers];
+        for (int i = 0; i < numWorkers; i++) {
+            this.workers[i] = new SCCWorker(i + 1);
+        }
+        this.unionfind = new UF(0, numWorkers, policy);
+        this.dirty = 0;
+        this.activeWorkers = numWorkers;
+        this.runningWorkers = numWorkers;
+        this.pickMode = UF.PickMode.skip;
+    }
+
+    public int getNumWorkers() {
+        return this.numWorkers;
+    }
+
+    public ContentionPolicy getPolicy() {
+        return this.policy;
+    }
+
+    public long getResetNanos() {
+        return this.resetNanos;
+    }
+
+    public long getSearchNanos() {
+        return this.searchNanos;
+    }
+
+    public long getLabelNanos() {
+        return this.labelNanos;
+    }
+
+    // setTrackLasso decides whether the following runs record a Lasso.
+    public void setTrackLasso(final boolean trackLasso) {
+        this.trackLasso = trackLasso;
+    }
+
+    // getLasso returns the Lasso of the last run, null if it was not tracked.
+    public Lasso getLasso() {
+        return this.lasso;
+    }
+
+    // setCheckpoint makes the following runs save their progress with `checkpoint` (null for none).
+    // If `resume` is set the dead sets saved by an earlier run on the same graph are restored
+    // first and are not searched again.
+    public void setCheckpoint(final Checkpoint checkpoint, final boolean resume) {
+        this.checkpoint = checkpoint;
+        this.resume = resume;
+    }
+
+    // setActiveWorkers makes the following runs search with the first `activeWorkers` workers only.
+    public void setActiveWorkers(final int activeWorkers) {
+        assert activeWorkers > 0 && activeWorkers <= numWorkers;
+        this.activeWorkers = activeWorkers;
+    }
+
+    // setAdaptive decides whether the following runs stop workers while the active ones mostly
+    // wait on each other's locks, as counted by the ContentionPolicy.
+    public void setAdaptive(final boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    // setPickMode sets how the union find of the following runs walks past the explored members of a set.
+    public void setPickMode(final UF.PickMode pickMode) {
+        this.pickMode = pickMode;
+    }
+
+    // setShareWork decides whether the workers of the following runs join the sets of the others
+    // once done with their roots, see WorkBoard.
+    public void setShareWork(final boolean shareWork) {
+        this.shareWork = shareWork;
+    }
+
+    // getActiveWorkers returns the number of workers still searching at the end of the last run.
+    public int getActiveWorkers() {
+        return this.runningWorkers;
+    }
+
+    // getCacheHits returns the union find lookups the workers saved with their RootCache in the last run.
+    public long getCacheHits() {
+        long hits = 0;
+        for (SCCWorker worker: workers) {
+            hits += worker.getCacheHits();
+        }
+        return hits;
+    }
+
+    // getUnionFind returns the union find structure of the last run.
+    public UF getUnionFind() {
+        return this.unionfind;
+    }
+
+    // prepare makes the union find structure ready for a graph of `n` nodes.
+    // Nodes used by the previous run are reset in place by all the threads of the engine.
+    private void prepare(final int n) {
+        final long start = System.nanoTime();
+
+        final UF uf = this.unionfind;
+        forEachRange(Math.min(this.dirty, uf.size()), (from, to) -> uf.reset(from, to));
+        uf.ensureCapacity(n + 1);
+        this.dirty = n + 1;
+        this.policy.resetContended();
+        uf.resetCounters();
+        uf.setPickMode(pickMode);
+
+        final long duration = System.nanoTime() - start;
+        this.resetNanos = duration;
+        System.err.println("Runtime for reset: " + duration);
+    }
+
+    // searchSCCs finds the SCCs of `graph` by starting DFS traversals from `initNodes`.
+    // Can be called any number of times but not concurrently.
+    public Map<Integer, Set<GraphNode>> searchSCCs(final Graph graph, final List<Integer> initNodes) {
+        final int[] labels = search(graph, initNodes);
+
+        // Organise the SCCs found in a Map of Sets. Map is required to keep track
+        // of roots of a union find tree.
+        final Map<Integer, Set<GraphNode>> result = new HashMap<Integer, Set<GraphNode>>();
+        for (int i = 0; i < labels.length; i++) {
+            int root = labels[i];
+            if (!result.containsKey(root)) {
+                result.put(root, new HashSet<GraphNode>());
+            }
+            result.get(root).add(graph.get(i));
+        }
+        return result;
+    }
+
+    // search finds the SCCs of `graph` by starting DFS traversals from `initNodes`.
+    // Returns the labels of the nodes: labels[v] is the representative node of the SCC of `v`.
+    // Can be called any number of times but not concurrently.
+    // Throws a CancellationException if the calling thread is interrupted, once the workers stopped.
+    public int[] search(final Digraph graph, final List<Integer> initNodes) {
+        this.cancelled = false;
+        final int[] labels = run(graph, initNodes);
+        if (cancelled) {
+            throw new CancellationException("Search interrupted.");
+        }
+        return labels;
+    }
+
+    // searchAsync starts the search of `graph` from `initNodes` in the background and returns at once.
+    // The search is cancelled after `timeoutMillis` milliseconds unless it is 0, in which case only
+    // SearchHandle.cancel stops it. The engine must not be used until the labels of the handle complete.
+    public SearchHandle searchAsync(final Digraph graph, final List<Integer> initNodes, final long timeoutMillis) {
+        this.cancelled = false;
+        final SearchHandle handle = new SearchHandle(this);
+        final Thread thread = new Thread(() -> {
+            try {
+                final int[] labels = run(graph, initNodes);
+                handle.finish(labels, !cancelled);
+            } catch (Throwable e) {
+                handle.fail(e);
+            }
+        }, "scc-search");
+        thread.setDaemon(true);
+        thread.start();
+        if (timeoutMillis > 0) {
+            CompletableFuture.delayedExecutor(timeoutMillis, TimeUnit.MILLISECONDS).execute(handle::cancel);
+        }
+        return handle;
+    }
+
+    // cancel stops the workers of the current run. Every worker gives up within the node it is
+    // exploring, the run then labels only the nodes of the sets already dead.
+    public void cancel() {
+        this.cancelled = true;
+        for (SCCWorker worker: workers) {
+            worker.stop();
+        }
+    }
+
+    // searchTargets finds the SCCs of the `targets` only. The workers start from `initNodes`, or from
+    // the targets themselves if it is null, and stop as soon as the set of every target is dead.
+    // The nodes are not labelled: the members of an SCC are collected by a breadth first search
+    // from its target which does not leave the set.
+    // Returns the members of the SCC of targets[i] in increasing order, null if it was not reached
+    // from `initNodes`. Targets in the same SCC share the array.
+    // Throws a CancellationException if the calling thread is interrupted, once the workers stopped.
+    // Throws an IllegalArgumentException if a target is not a node of `graph`.
+    public int[][] searchTargets(final Digraph graph, final int[] targets, final List<Integer> initNodes) {
+        for (int t: targets) {
+            if (t < 0 || t >= graph.N()) {
+                throw new IllegalArgumentException("Target " + t + " is not a node of the graph.");
+            }
+        }
+        this.cancelled = false;
+        final List<Integer> roots = new ArrayList<Integer>();
+        if (initNodes != null) {
+            roots.addAll(initNodes);
+        } else {
+            for (int t: targets) {
+                roots.add(t);
+            }
+        }
+        final UF uf = this.unionfind;
+        final Thread watch = new Thread(() -> {
+            final int[] remaining = targets.clone();
+            int count = remaining.length;
+            while (!Thread.currentThread().isInterrupted()) {
+                // Dead sets stay dead, drop the targets resolved.
+                int kept = 0;
+                for (int i = 0; i < count; i++) {
+                    if (!uf.isDead(remaining[i] + 1)) {
+                        remaining[kept++] = remaining[i];
+                    }
+                }
+                count = kept;
+                if (count == 0) {
+                    System.err.println("Every target resolved, stopping the workers.");
+                    cancel();
+                    return;
+                }
+                LockSupport.parkNanos(TARGET_POLL_NANOS);
+            }
+        }, "scc-targets");
+        watch.setDaemon(true);
+        // Started once the union find is ready for `graph`, see `explore`.
+        explore(graph, roots, watch);
+        watch.interrupt();
+        join(watch);
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Search interrupted.");
+        }
+
+        final long start = System.nanoTime();
+        final int[][] result = new int[targets.length][];
+        final Map<Integer, int[]> byRoot = new HashMap<Integer, int[]>();
+        final BitSet seen = new BitSet(graph.N());
+        final ArcCursor cursor = graph.cursor(0);
+        for (int i = 0; i < targets.length; i++) {
+            final int t = targets[i];
+            if (!uf.isDead(t + 1)) {
+                continue;
+            }
+            final int root = uf.find(t + 1);
+            if (!byRoot.containsKey(root)) {
+                final IntStack members = new IntStack();
+                seen.set(t);
+                members.push(t);
+                for (int head = 0; head < members.size(); head++) {
+                    cursor.start(members.get(head));
+                    while (cursor.hasNext()) {
+                        final int w = cursor.next();
+                        if (!seen.get(w) && uf.find(w + 1) == root) {
+                            seen.set(w);
+                            members.push(w);
+                        }
+                    }
+                }
+                final int[] sorted = members.toArray();
+                Arrays.sort(sorted);
+                byRoot.put(root, sorted);
+            }
+            result[i] = byRoot.get(root);
+        }
+        this.labelNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    // searchBottom finds the bottom SCCs of `graph` reachable from `initNodes`, the SCCs no arc leaves.
+    // The sets record whether an arc to another dead set was explored (see UF.markExit), and a set
+    // marked dead without one is a bottom SCC. Its members are collected by a search from its root,
+    // which does not leave the SCC, and handed to `listener` as the workers go on: from a single
+    // thread of its own, in the order the SCCs are found.
+    // Returns the number of bottom SCCs.
+    // Throws a CancellationException if the calling thread is interrupted, once the workers stopped.
+    // Throws what `listener` threw, the search being cancelled at its first failure.
+    public long searchBottom(final Digraph graph, final List<Integer> initNodes, final BottomListener listener) {
+        this.cancelled = false;
+        final UF uf = this.unionfind;
+        final ConcurrentLinkedQueue<Integer> found = new ConcurrentLinkedQueue<Integer>();
+        final long[] count = new long[1];
+        final long[] deliverNanos = new long[1];
+        // failure is what the listener threw, the search is cancelled then.
+        final Throwable[] failure = new Throwable[1];
+        final Thread deliver = new Thread(() -> {
+            final BitSet seen = new BitSet(graph.N());
+            final ArcCursor cursor = graph.cursor(0);
+            final IntStack members = new IntStack();
+            boolean last = false;
+            try {
+                while (true) {
+                    // The search is over once interrupted, deliver what is left.
+                    last = last || Thread.currentThread().isInterrupted();
+                    final Integer root = found.poll();
+                    if (root == null) {
+                        if (last) {
+                            return;
+                        }
+                        LockSupport.parkNanos(TARGET_POLL_NANOS);
+                        continue;
+                    }
+                    final long start = System.nanoTime();
+                    members.clear();
+                    seen.set(root - 1);
+                    members.push(root - 1);
+                    for (int head = 0; head < members.size(); head++) {
+                        cursor.start(members.get(head));
+                        while (cursor.hasNext()) {
+                            final int w = cursor.next();
+                            if (!seen.get(w)) {
+                                seen.set(w);
+                                members.push(w);
+                            }
+                        }
+                    }
+                    final int[] sorted = members.toArray();
+                    Arrays.sort(sorted);
+                    listener.bottom(sorted);
+                    count[0]++;
+                    deliverNanos[0] += System.nanoTime() - start;
+                }
+            } catch (Throwable e) {
+                // The SCCs not delivered yet would be lost, the search is pointless.
+                failure[0] = e;
+                cancel();
+            }
+        }, "scc-bottom");
+        deliver.setDaemon(true);
+        uf.setBottomSink(found::add);
+        try {
+            // Started once the union find is ready for `graph`, see `explore`.
+            explore(graph, initNodes, deliver);
+        } finally {
+            uf.setBottomSink(null);
+            deliver.interrupt();
+            join(deliver);
+        }
+        if (failure[0] instanceof RuntimeException) {
+            throw (RuntimeException) failure[0];
+        } else if (failure[0] instanceof Error) {
+            throw (Error) failure[0];
+        } else if (failure[0] != null) {
+            throw new RuntimeException(failure[0]);
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Search interrupted.");
+        }
+        this.labelNanos = deliverNanos[0];
+        System.err.println("Bottom SCCs: " + count[0] + ".");
+        return count[0];
+    }
+
+    // run is the search behind `search` and `searchAsync`. The labels of a cancelled run are
+    // those of `deadLabels`.
+    private int[] run(final Digraph graph, final List<Integer> initNodes) {
+        explore(graph, initNodes, null);
+        if (cancelled) {
+            System.err.println("Search cancelled.");
+            return deadLabels(graph.N());
+        }
+        return labels(graph.N());
+    }
+
+    // explore runs the workers from `initNodes` until every node reachable from them is in a dead
+    // set or the run is cancelled. `watch` (unless null) is started along with the workers.
+    private void explore(final Digraph graph, final List<Integer> initNodes, final Thread watch) {
+        prepare(graph.N());
+        final UF uf = this.unionfind;
+        final Lasso lasso = trackLasso ? new Lasso(graph.N()) : null;
+        this.lasso = lasso;
+        if (checkpoint != null) {
+            try {
+                if (resume) {
+                    checkpoint.restore(uf, graph.N());
+                }
+                checkpoint.start(uf, graph.N());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        final long start = System.nanoTime();
+
+        // Initially queue each node in `initNodes` for a DFS traversal.
+        final int active = this.activeWorkers;
+        final List<Integer> roots = new ArrayList<Integer>(initNodes);
+        // If still some threads are ideal, queue the same nodes again.
+        // This is not redundant as a node is explored in a randomized fashion
+        // by a thread. More specifically, a thread with id `a` will explore with `a` offset.
+        if (!initNodes.isEmpty() && initNodes.size() < active) {
+            int leftCores = active - initNodes.size();
+            for (int i = 0; i < leftCores; i++) {
+                roots.add(initNodes.get(i % initNodes.size()));
+            }
+        }
+
+        for (SCCWorker worker: workers) {
+            worker.resume();
+            worker.forget();
+        }
+        // A cancel that came before the workers were resumed.
+        if (cancelled) {
+            cancel();
+        }
+        this.runningWorkers = active;
+        final ConcurrentLinkedQueue<Integer> abandoned = new ConcurrentLinkedQueue<Integer>();
+        final Thread monitor = adaptive && active > 1 ? monitor(active) : null;
+        if (watch != null) {
+            watch.start();
+        }
+        try {
+            searchRoots(graph, uf, lasso, roots, active, abandoned);
+        } finally {
+            if (monitor != null) {
+                monitor.interrupt();
+                join(monitor);
+            }
+            if (checkpoint != null) {
+                try {
+                    checkpoint.stop();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        // The roots given up by stopped workers are searched again by the others.
+        while (!abandoned.isEmpty() && !cancelled) {
+            final List<Integer> retry = new ArrayList<Integer>(abandoned);
+            abandoned.clear();
+            searchRoots(graph, uf, lasso, retry, active, abandoned);
+        }
+
+        final long duration = System.nanoTime() - start;
+        this.searchNanos = duration;
+        System.err.println("Runtime for algorithm: " + duration);
+        System.err.println("Contended rounds (" + policy + "): " + policy.getContended());
+        System.err.println("Union find lookups saved by the worker caches: " + getCacheHits());
+        System.err.println("List traversal (" + pickMode + "): " + uf.getPicks() + " picks visited "
+                + uf.getPickSteps() + " list nodes.");
+    }
+
+    // searchRoots lets the first `active` workers that are not stopped take the `roots` one after
+    // the other until none is left. A root given up by a worker stopped meanwhile goes to `abandoned`.
+    // If work is shared the workers done with the roots then join the sets of the others (see WorkBoard).
+    private void searchRoots(final Digraph graph, final UF uf, final Lasso lasso, final List<Integer> roots,
+                             final int active, final ConcurrentLinkedQueue<Integer> abandoned) {
+        final AtomicInteger next = new AtomicInteger(0);
+        final WorkBoard board = shareWork ? new WorkBoard(numWorkers) : null;
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(active);
+        for (int w = 0; w < active; w++) {
+            final SCCWorker worker = workers[w];
+            if (worker.isStopped()) {
+                continue;
+            }
+            if (board != null) {
+                // Busy from the start, so that no worker leaves before the others took their roots.
+                board.enter();
+            }
+            tasks.add(() -> {
+                for (int i = next.getAndIncrement(); i < roots.size(); i = next.getAndIncrement()) {
+                    final int nodeId = roots.get(i);
+                    if (uf.visited.get(nodeId) == false && !worker.run(graph, uf, nodeId, lasso, board)) {
+                        abandoned.add(nodeId);
+                        break;
+                    }
+                }
+                if (board != null) {
+                    board.publish(worker.getWorkerId(), -1);
+                    board.leave();
+                    joinSets(worker, graph, uf, lasso, board);
+                }
+                return null;
+            });
+        }
+        invokeAll(tasks);
+    }
+
+    // joinSets makes `worker` explore the sets published on `board` as long as some worker is busy.
+    private void joinSets(final SCCWorker worker, final Digraph graph, final UF uf, final Lasso lasso,
+                          final WorkBoard board) {
+        while (board.isBusy() && !worker.isStopped()) {
+            final int v = board.pick(worker.getWorkerId(), uf);
+            if (v == -1) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            board.enter();
+            final boolean done = worker.run(graph, uf, v, lasso, board);
+            board.publish(worker.getWorkerId(), -1);
+            board.leave();
+            if (!done) {
+                // `v` is searched again from the root of the worker which published it.
+                return;
+            }
+        }
+    }
+
+    // monitor starts a thread halving the number of searching workers, down to a single one,
+    // whenever the `active` first workers mostly spun since the previous check.
+    private Thread monitor(final int active) {
+        final Thread thread = new Thread(() -> {
+            int running = active;
+            long last = policy.getContended();
+            while (running > 1) {
+                try {
+                    Thread.sleep(MONITOR_MILLIS);
+                } catch (InterruptedException e) {
+                    // The search is over.
+                    return;
+                }
+                final long contended = policy.getContended();
+                if ((contended - last) / running > SHRINK_ROUNDS) {
+                    final int kept = running / 2;
+                    for (int w = kept; w < running; w++) {
+                        workers[w].stop();
+                    }
+                    running = kept;
+                    this.runningWorkers = kept;
+                    System.err.println("Contention: " + (contended - last) + " rounds in " + MONITOR_MILLIS
+                            + "ms, searching with " + kept + " workers.");
+                }
+                last = contended;
+            }
+        }, "scc-monitor");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    // join waits for `thread` to finish, keeping the interrupt status of the caller.
+    private static void join(final Thread thread) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // labels finds the root of every node in parallel.
+    private int[] labels(final int n) {
+        final long start = System.nanoTime();
+
+        final UF uf = this.unionfind;
+        final int[] labels = new int[n];
+        forEachRange(n, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                labels[i] = uf.find(i + 1) - 1;
+            }
+        });
+
+        this.labelNanos = System.nanoTime() - start;
+        return labels;
+    }
+
+    // deadLabels labels the nodes in dead sets, i.e., the SCCs found, as `labels` does, the others -1.
+    // A dead set does not change any more, so this holds whatever the workers were doing.
+    private int[] deadLabels(final int n) {
+        final long start = System.nanoTime();
+
+        final UF uf = this.unionfind;
+        final int[] labels = new int[n];
+        forEachRange(n, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                labels[i] = uf.isDead(i + 1) ? uf.find(i + 1) - 1 : -1;
+            }
+        });
+
+        this.labelNanos = System.nanoTime() - start;
+        return labels;
+    }
+
+    // forEachRange splits [0, n) into one contiguous range per worker and
+    // runs `task` on all of them in parallel. Returns once every range is done.
+    public void forEachRange(final int n, final RangeTask task) {
+        forEachRange(n, (range, from, to) -> task.run(from, to));
+    }
+
+    // forEachRange is as above, `task` being told the number of its range. There are at most
+    // as many ranges as workers.
+    public void forEachRange(final int n, final IndexedRangeTask task) {
+        if (n <= 0) {
+            return;
+        }
+        final int chunk = (n + numWorkers - 1) / numWorkers;
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numWorkers);
+        for (int from = 0, range = 0; from < n; from += chunk, range++) {
+            final int r = range;
+            final int lo = from;
+            final int hi = Math.min(n, from + chunk);
+            tasks.add(() -> {
+                task.run(r, lo, hi);
+                return null;
+            });
+        }
+        invokeAll(tasks);
+    }
+
+    // invokeAll runs `tasks` on the threads of the engine and waits for all of them.
+    // If the calling thread is interrupted the workers are cancelled, and still waited for so that
+    // the engine can be used again; the interrupt status is set again on return.
+    private void invokeAll(final List<Callable<Void>> tasks) {
+        final List<Future<Void>> futures = new ArrayList<Future<Void>>(tasks.size());
+        for (Callable<Void> task: tasks) {
+            futures.add(executor.submit(task));
+        }
+        boolean interrupted = false;
+        Throwable failure = null;
+        for (Future<Void> future: futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    cancel();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+    }
+
+    // close stops the threads of the engine. The engine cannot be used afterwards.
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
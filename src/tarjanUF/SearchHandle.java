@@ -0,0 +1,60 @@
+package tarjanUF;
+
+import java.util.concurrent.CompletableFuture;
+
+// SearchHandle is a search running in the background, as started by SccEngine.searchAsync.
+// `getLabels` completes with the labels once the workers are done, be it because the search
+// finished or because it was cancelled (by `cancel` or at the deadline). A cancelled search
+// still gives the SCCs found so far, i.e., the sets marked dead in the union find: the other
+// nodes are labelled -1. `isComplete` tells the two apart.
+public class SearchHandle {
+
+    private final SccEngine engine;
+    private final CompletableFuture<int[]> labels;
+    // done is set once the workers of the engine are done with this search.
+    private boolean done;
+    private volatile boolean complete;
+
+    // Constructor.
+    SearchHandle(final SccEngine engine) {
+        this.engine = engine;
+        this.labels = new CompletableFuture<int[]>();
+    }
+
+    // getLabels returns the labels of the search: labels[v] is the representative node of the SCC
+    // of `v`, -1 if the search was cancelled before finding it.
+    public CompletableFuture<int[]> getLabels() {
+        return this.labels;
+    }
+
+    // isComplete returns true if every SCC was found. Only meaningful once `getLabels` completed.
+    public boolean isComplete() {
+        return this.complete;
+    }
+
+    // cancel stops the workers. They give up within the node they are exploring and `getLabels`
+    // completes right after. Does nothing if the search is already done.
+    public synchronized void cancel() {
+        if (!done) {
+            engine.cancel();
+        }
+    }
+
+    // finish records the outcome of the search, called by the thread of the search.
+    void finish(final int[] result, final boolean complete) {
+        synchronized (this) {
+            // Cancelling from now on would stop the next search of the engine.
+            this.done = true;
+        }
+        this.complete = complete;
+        this.labels.complete(result);
+    }
+
+    // fail records that the search threw `cause`.
+    void fail(final Throwable cause) {
+        synchronized (this) {
+            this.done = true;
+        }
+        this.labels.completeExceptionally(cause);
+    }
+}
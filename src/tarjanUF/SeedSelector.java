@@ -0,0 +1,100 @@
+package tarjanUF;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SeedSelector {
+
+    private final SccEngine engine;
+
+    // Constructor.
+    // The threads of `engine` are used for every step.
+    public SeedSelector(final SccEngine engine) {
+        this.engine = engine;
+    }
+
+    // select computes the nodes from which the DFS traversals are started. It replaces the
+    // `.init` files created by `experiments/createInits.cpp`. The seeds are:
+    // 1. Every node without an incoming arc, found in parallel.
+    // 2. Spread seeds: nodes evenly spaced in the breadth first order from the former,
+    //      so that the workers start in different regions of the graph instead of
+    //      sharing the few sources.
+    // 3. Coverage seeds: one node for every part of the graph not reachable from the former.
+    // The seeds are returned in this order as the engine hands out roots in order.
+    public List<Integer> select(final Graph graph) {
+        final long start = System.nanoTime();
+
+        final int n = graph.N();
+        final int workers = engine.getNumWorkers();
+
+        // Mark every node having an incoming arc. All the writes are `true`,
+        // hence the races between workers are benign.
+        final boolean[] hasIncoming = new boolean[n];
+        engine.forEachRange(n, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                for (int w: graph.get(v).getArcs()) {
+                    if (w != v) {
+                        hasIncoming[w] = true;
+                    }
+                }
+            }
+        });
+
+        // Collect the sources, every worker its own range.
+        final IntStack[] ranges = new IntStack[workers];
+        engine.forEachRange(n, (range, from, to) -> {
+            final IntStack local = new IntStack();
+            for (int v = from; v < to; v++) {
+                if (!hasIncoming[v]) {
+                    local.push(v);
+                }
+            }
+            ranges[range] = local;
+        });
+        final IntStack sources = new IntStack();
+        for (IntStack local: ranges) {
+            for (int i = 0; local != null && i < local.size(); i++) {
+                sources.push(local.get(i));
+            }
+        }
+        final int[] seeds = sources.toArray();
+        final int numSources = seeds.length;
+
+        // Everything reachable from the sources, in breadth first order.
+        final Reachability reachability = new Reachability(graph, engine);
+        final IntStack order = new IntStack();
+        reachability.visit(seeds, numSources, order);
+
+        final List<Integer> result = new ArrayList<Integer>();
+        for (int v: seeds) {
+            result.add(v);
+        }
+        int numSpread = 0;
+        if (numSources < workers && order.size() > numSources) {
+            // Take the nodes at positions k * |order| / workers of the breadth first order.
+            final int[] ordered = order.toArray();
+            for (int k = 1; k <= workers - numSources; k++) {
+                result.add(ordered[(int) ((long) k * (ordered.length - 1) / (workers - numSources))]);
+                numSpread++;
+            }
+        }
+
+        // Every node not reached yet starts a new traversal itself.
+        int numCoverage = 0;
+        final int[] single = new int[1];
+        for (int v = 0; v < n && reachability.getCount() < n; v++) {
+            if (!reachability.isReached(v)) {
+                single[0] = v;
+                reachability.visit(single, 1, null);
+                result.add(v);
+                numCoverage++;
+            }
+        }
+
+        final long duration = System.nanoTime() - start;
+        System.err.println("Seeds: " + numSources + " sources, " + numSpread + " spread and "
+                + numCoverage + " coverage seeds.");
+        System.err.println("Runtime for seed selection: " + duration);
+        return result;
+    }
+}
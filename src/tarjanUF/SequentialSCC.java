@@ -0,0 +1,83 @@
+package tarjanUF;
+
+// SequentialSCC is Tarjan's algorithm without recursion, for pieces of a graph that are too
+// small to pay for the synchronisation of the concurrent algorithm. The state is kept in arrays
+// over all the nodes of the graph, so several instances can work on disjoint pieces of the same
+// graph at the same time as long as no arc goes from one piece to another.
+public class SequentialSCC {
+
+    private final ArcCursor cursor;
+    // labels[v] is set to the root of the SCC of `v` once it is found.
+    private final int[] labels;
+    // index[v] is the DFS number of `v` (0 if not visited yet), low[v] the smallest DFS
+    // number reachable from `v` through nodes on the Tarjan stack.
+    private final int[] index;
+    private final int[] low;
+    private final boolean[] onStack;
+    private final IntStack stack;
+    // calls keeps the saved cursors of the nodes whose successors are still being visited.
+    private final IntStack calls;
+    private int counter;
+
+    // Constructor.
+    // `index`, `low` and `onStack` must have one entry per node and be all zeros/false initially.
+    public SequentialSCC(final Digraph graph, final int[] labels, final int[] index, final int[] low,
+                         final boolean[] onStack) {
+        this.cursor = graph.cursor(0);
+        this.labels = labels;
+        this.index = index;
+        this.low = low;
+        this.onStack = onStack;
+        this.stack = new IntStack();
+        this.calls = new IntStack();
+        this.counter = 0;
+    }
+
+    // run finds the SCCs of the nodes reachable from `root`.
+    public void run(final int root) {
+        if (index[root] != 0) {
+            return;
+        }
+        visit(root);
+        while (true) {
+            if (cursor.hasNext()) {
+                final int v = cursor.node();
+                final int w = cursor.next();
+                if (index[w] == 0) {
+                    // Go deeper, `v` continues from its next arc once `w` is done.
+                    cursor.save(calls);
+                    visit(w);
+                } else if (onStack[w]) {
+                    low[v] = Math.min(low[v], index[w]);
+                }
+                continue;
+            }
+
+            // All the successors of `v` are done.
+            final int v = cursor.node();
+            if (low[v] == index[v]) {
+                int w;
+                do {
+                    w = stack.pop();
+                    onStack[w] = false;
+                    labels[w] = v;
+                } while (w != v);
+            }
+            if (calls.empty()) {
+                return;
+            }
+            cursor.restore(calls);
+            final int u = cursor.node();
+            low[u] = Math.min(low[u], low[v]);
+        }
+    }
+
+    private void visit(final int v) {
+        counter++;
+        index[v] = counter;
+        low[v] = counter;
+        stack.push(v);
+        onStack[v] = true;
+        cursor.start(v);
+    }
+}
@@ -0,0 +1,272 @@
+package tarjanUF;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// SplitSearch finds the SCCs of a graph piece by piece, the pieces being its weakly connected
+// components. Graphs made of several independent parts (different init states, independent
+// processes) then do not share a single union find between all the workers:
+// - pieces of at most `sequentialLimit` nodes are solved by SequentialSCC, spread over the
+//   threads of the engine,
+// - a single large piece is searched by the engine itself,
+// - several large pieces are split into lanes (largest first, each to the lane with the least
+//   nodes so far) and every lane gets its own SccEngine with threads in proportion to its nodes.
+//   A large piece is renumbered into a graph of its own (and compressed if asked) first, so that
+//   lanes never touch each other's union find nodes or cache lines.
+// Only the nodes reachable from `initNodes` are searched, as with SccEngine.search.
+public class SplitSearch {
+
+    // Pieces with at most this many nodes are solved sequentially by default.
+    public static final int DEFAULT_SEQUENTIAL_LIMIT = 10000;
+
+    private final SccEngine engine;
+    private final int sequentialLimit;
+    // compress makes the lanes search a CompressedGraph of their pieces.
+    private final boolean compress;
+    // Statistics of the last search.
+    private int pieces;
+    private int sequentialPieces;
+    private int largestPiece;
+    private long splitNanos;
+    private long searchNanos;
+    private long contended;
+
+    // Lane is a sequence of large pieces searched by a single engine.
+    private static class Lane {
+        final List<Integer> pieces = new ArrayList<Integer>();
+        long nodes = 0;
+        int threads = 0;
+    }
+
+    // Constructor.
+    public SplitSearch(final SccEngine engine, final int sequentialLimit, final boolean compress) {
+        this.engine = engine;
+        this.sequentialLimit = sequentialLimit;
+        this.compress = compress;
+    }
+
+    public int getPieces() {
+        return this.pieces;
+    }
+
+    public int getSequentialPieces() {
+        return this.sequentialPieces;
+    }
+
+    public int getLargestPiece() {
+        return this.largestPiece;
+    }
+
+    public long getSplitNanos() {
+        return this.splitNanos;
+    }
+
+    public long getSearchNanos() {
+        return this.searchNanos;
+    }
+
+    // getContended returns the rounds spent waiting on locks, over all the engines used.
+    public long getContended() {
+        return this.contended;
+    }
+
+    // search finds the SCCs of `graph` by starting DFS traversals from `initNodes`.
+    // Returns the labels of the nodes as SccEngine.search does.
+    public int[] search(final Graph graph, final List<Integer> initNodes) {
+        return search(graph, initNodes, null);
+    }
+
+    // search is as above with the pieces of `graph` already computed, unless `computed` is null.
+    public int[] search(final Graph graph, final List<Integer> initNodes, final WeakComponents computed) {
+        long start = System.nanoTime();
+
+        final int n = graph.N();
+        final WeakComponents components = computed != null ? computed : WeakComponents.compute(graph, engine);
+        final int count = components.count();
+        // Group the init nodes by piece: inits[initBegin[p]..initBegin[p + 1]) start piece `p`.
+        final int[] initBegin = new int[count + 1];
+        for (int v: initNodes) {
+            initBegin[components.piece(v) + 1]++;
+        }
+        for (int p = 0; p < count; p++) {
+            initBegin[p + 1] += initBegin[p];
+        }
+        final int[] inits = new int[initNodes.size()];
+        final int[] fill = new int[count];
+        System.arraycopy(initBegin, 0, fill, 0, count);
+        for (int v: initNodes) {
+            inits[fill[components.piece(v)]++] = v;
+        }
+
+        // Pieces without init nodes are not searched at all.
+        final IntStack small = new IntStack();
+        final IntStack large = new IntStack();
+        this.largestPiece = 0;
+        for (int p = 0; p < count; p++) {
+            this.largestPiece = Math.max(this.largestPiece, components.size(p));
+            if (initBegin[p] == initBegin[p + 1]) {
+                continue;
+            }
+            if (components.size(p) <= sequentialLimit) {
+                small.push(p);
+            } else {
+                large.push(p);
+            }
+        }
+        this.pieces = count;
+        this.sequentialPieces = small.size();
+        this.splitNanos = System.nanoTime() - start;
+        System.err.println("Pieces: " + count + ", " + small.size() + " solved sequentially, "
+                + large.size() + " concurrently, the largest has " + largestPiece + " nodes.");
+        System.err.println("Runtime for split: " + splitNanos);
+
+        start = System.nanoTime();
+        this.contended = 0;
+        final int[] labels = new int[n];
+        engine.forEachRange(n, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                labels[v] = v;
+            }
+        });
+
+        // Small pieces, a contiguous range of them per thread.
+        if (!small.empty()) {
+            final int[] index = new int[n];
+            final int[] low = new int[n];
+            final boolean[] onStack = new boolean[n];
+            engine.forEachRange(small.size(), (from, to) -> {
+                final SequentialSCC tarjan = new SequentialSCC(graph, labels, index, low, onStack);
+                for (int i = from; i < to; i++) {
+                    final int p = small.get(i);
+                    for (int j = initBegin[p]; j < initBegin[p + 1]; j++) {
+                        tarjan.run(inits[j]);
+                    }
+                }
+            });
+        }
+
+        // Large pieces. pieceIds[v] is the id of `v` in its renumbered piece, shared by the pieces
+        // as they are disjoint.
+        final int[] pieceIds = count == 1 ? null : new int[n];
+        if (large.size() == 1) {
+            // A single piece is searched by the engine itself, as it is if there is nothing to split.
+            final int p = large.get(0);
+            final int[] members = count == 1 ? null : components.members(p);
+            searchPiece(graph, members, pieceIds, inits, initBegin[p], initBegin[p + 1], engine, labels);
+            this.contended += engine.getPolicy().getContended();
+        } else if (large.size() > 1) {
+            // Every lane is driven by a thread of the engine while its own engine searches.
+            final List<Lane> lanes = plan(components, large);
+            final long[] laneContended = new long[lanes.size()];
+            engine.forEachRange(lanes.size(), (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    final Lane lane = lanes.get(i);
+                    try (SccEngine laneEngine = new SccEngine(lane.threads, engine.getPolicy().copy())) {
+                        for (int p: lane.pieces) {
+                            searchPiece(graph, components.members(p), pieceIds, inits, initBegin[p],
+                                    initBegin[p + 1], laneEngine, labels);
+                            laneContended[i] += laneEngine.getPolicy().getContended();
+                        }
+                    }
+                }
+            });
+            for (long c: laneContended) {
+                this.contended += c;
+            }
+        }
+
+        this.searchNanos = System.nanoTime() - start;
+        System.err.println("Runtime for split search: " + searchNanos);
+        return labels;
+    }
+
+    // plan splits the `large` pieces into at most as many lanes as the engine has threads
+    // and divides the threads between them.
+    private List<Lane> plan(final WeakComponents components, final IntStack large) {
+        final int numWorkers = engine.getNumWorkers();
+        final int[] sorted = large.toArray();
+        // Largest pieces first.
+        final long[] keys = new long[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            keys[i] = ((long) -components.size(sorted[i]) << 32) | sorted[i];
+        }
+        Arrays.sort(keys);
+
+        final List<Lane> lanes = new ArrayList<Lane>();
+        for (int i = 0; i < Math.min(numWorkers, sorted.length); i++) {
+            lanes.add(new Lane());
+        }
+        long total = 0;
+        for (long key: keys) {
+            final int p = (int) key;
+            Lane least = lanes.get(0);
+            for (Lane lane: lanes) {
+                if (lane.nodes < least.nodes) {
+                    least = lane;
+                }
+            }
+            least.pieces.add(p);
+            least.nodes += components.size(p);
+            total += components.size(p);
+        }
+
+        // Threads proportional to the nodes, at least one each, exactly `numWorkers` in all: the
+        // threads of the lanes rounded up to one are taken back from the lanes with the most, the
+        // rest go to the largest lanes. The engine's own threads only wait for the lanes meanwhile.
+        int assigned = 0;
+        for (Lane lane: lanes) {
+            lane.threads = Math.max(1, (int) (numWorkers * lane.nodes / total));
+            assigned += lane.threads;
+        }
+        lanes.sort((a, b) -> Long.compare(b.nodes, a.nodes));
+        // There are at most `numWorkers` lanes, one of them has more than one thread until then.
+        while (assigned > numWorkers) {
+            Lane most = lanes.get(0);
+            for (Lane lane: lanes) {
+                if (lane.threads > most.threads) {
+                    most = lane;
+                }
+            }
+            most.threads--;
+            assigned--;
+        }
+        for (int i = 0; assigned < numWorkers; i = (i + 1) % lanes.size()) {
+            lanes.get(i).threads++;
+            assigned++;
+        }
+        return lanes;
+    }
+
+    // searchPiece searches the piece made of the nodes `members` of `graph` (the whole graph if
+    // null) with `pieceEngine`, starting from inits[from..to), and stores the labels of its nodes in `labels`.
+    // The ids of the members in the piece are written to their entries of `pieceIds`.
+    private void searchPiece(final Graph graph, final int[] members, final int[] pieceIds, final int[] inits,
+                             final int from, final int to, final SccEngine pieceEngine, final int[] labels) {
+        final Renumbering renumbering = members == null ? null : new Renumbering(members, pieceIds);
+        Graph piece = renumbering == null ? graph : renumbering.apply(graph, pieceEngine);
+        final List<Integer> pieceInits = new ArrayList<Integer>(to - from);
+        for (int i = from; i < to; i++) {
+            pieceInits.add(renumbering == null ? inits[i] : renumbering.newId(inits[i]));
+        }
+        final Digraph searched;
+        if (compress) {
+            searched = CompressedGraph.compress(piece, pieceEngine);
+            piece = null;
+        } else {
+            searched = piece;
+        }
+        copyLabels(pieceEngine.search(searched, pieceInits), renumbering, labels);
+    }
+
+    // copyLabels stores the labels of a piece, mapped back with `renumbering` unless it is null.
+    private static void copyLabels(final int[] pieceLabels, final Renumbering renumbering, final int[] labels) {
+        for (int v = 0; v < pieceLabels.length; v++) {
+            if (renumbering == null) {
+                labels[v] = pieceLabels[v];
+            } else {
+                labels[renumbering.original(v)] = renumbering.original(pieceLabels[v]);
+            }
+        }
+    }
+}
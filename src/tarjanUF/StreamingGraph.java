@@ -0,0 +1,220 @@
+package tarjanUF;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// StreamingGraph is a graph the workers can search while it is still being read, to overlap
+// loading with the search. The edge list must be sorted by source node, as `dve2lts-mc` writes
+// its dumps: the arcs of a node are complete once the next source appears, and its adjacency
+// list is published then, along with an empty list for every node skipped on the way, which is
+// never a source. A worker reaching a node whose list is not published yet parks until it is.
+// Only the nodes above the last source wait for the end of the file.
+// The number of nodes must be known up front, the union find being sized before the search:
+// N() is that bound, `numNodes` the number of nodes actually read.
+public class StreamingGraph implements Digraph {
+
+    // A worker waiting for the arcs of a node parks this long between two looks.
+    public static final long WAIT_NANOS = 20000;
+
+    private static final int[] NO_ARCS = new int[0];
+    // SKIPPED is the empty list of a node skipped by the sources, told apart from NO_ARCS
+    // to detect sources out of order.
+    private static final int[] SKIPPED = new int[0];
+
+    private final int n;
+    // lists.get(v) holds the arcs of `v` once published, null until then.
+    private final AtomicReferenceArray<int[]> lists;
+    // waits counts the times a worker parked on a list not published yet.
+    private final LongAdder waits;
+    // Written by the loader, read once it is done.
+    private int numNodes;
+    private long numArcs;
+    private long loadNanos;
+    private volatile Throwable failure;
+
+    // Constructor.
+    // `n` is an upper bound on the number of nodes, their ids being in [0..n - 1].
+    public StreamingGraph(final int n) {
+        this.n = n;
+        this.lists = new AtomicReferenceArray<int[]>(n);
+        this.waits = new LongAdder();
+    }
+
+    @Override
+    public int N() {
+        return this.n;
+    }
+
+    // numNodes returns one more than the largest node read, once the loader is done.
+    public int numNodes() {
+        return this.numNodes;
+    }
+
+    public long numArcs() {
+        return this.numArcs;
+    }
+
+    public long getWaits() {
+        return this.waits.sum();
+    }
+
+    public long getLoadNanos() {
+        return this.loadNanos;
+    }
+
+    // getFailure returns what stopped the loader, null if the whole file was read.
+    public Throwable getFailure() {
+        return this.failure;
+    }
+
+    // load starts a thread reading the edge list in `filename` and returns it.
+    // Every list is published once the thread is done, even if reading failed (see `getFailure`),
+    // so that the workers always finish; their result is meaningless then.
+    public Thread load(final String filename) {
+        final Thread thread = new Thread(() -> {
+            final long start = System.nanoTime();
+            try {
+                read(filename);
+            } catch (Throwable e) {
+                this.failure = e;
+            } finally {
+                finish();
+            }
+            this.loadNanos = System.nanoTime() - start;
+            System.err.println("Runtime for input: " + this.loadNanos);
+        }, "scc-loader");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    // read publishes the arcs of every source as soon as the next source appears.
+    private void read(final String filename) throws IOException {
+        final IntStack arcs = new IntStack();
+        int source = -1;
+        int maxNode = -1;
+        long count = 0;
+        final FileInputStream in = new FileInputStream(filename);
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(in))) {
+            for (String line = br.readLine(); line != null; line = br.readLine()) {
+                final String[] split = line.trim().split("\\s+");
+                if (split.length < 2) {
+                    continue;
+                }
+                final int nodeId = Integer.parseInt(split[0]);
+                final int arcId = Integer.parseInt(split[1]);
+                if (nodeId < 0 || nodeId >= n || arcId < 0 || arcId >= n) {
+                    throw new IOException("Arc " + nodeId + " -> " + arcId + " is out of the " + n + " nodes expected.");
+                }
+                if (nodeId != source) {
+                    if (source != -1) {
+                        lists.set(source, arcs.toArray());
+                    }
+                    // A list once published may have been explored already.
+                    final int[] published = lists.get(nodeId);
+                    if (published == SKIPPED) {
+                        throw new IOException("The sources are not in increasing order at node " + nodeId + ".");
+                    } else if (published != null) {
+                        throw new IOException("The arcs of node " + nodeId + " are not contiguous.");
+                    }
+                    // The nodes between two sources have no arcs.
+                    for (int v = source + 1; v < nodeId; v++) {
+                        lists.set(v, SKIPPED);
+                    }
+                    arcs.clear();
+                    source = nodeId;
+                }
+                arcs.push(arcId);
+                maxNode = Math.max(maxNode, Math.max(nodeId, arcId));
+                count++;
+            }
+        }
+        if (source != -1) {
+            lists.set(source, arcs.toArray());
+        }
+        this.numNodes = maxNode + 1;
+        this.numArcs = count;
+    }
+
+    // finish publishes an empty list for every node without one.
+    private void finish() {
+        for (int v = 0; v < n; v++) {
+            if (lists.get(v) == null) {
+                lists.set(v, NO_ARCS);
+            }
+        }
+    }
+
+    // arcs returns the arcs of `v`, waiting until they are published.
+    private int[] arcs(final int v) {
+        int[] arcs = lists.get(v);
+        while (arcs == null) {
+            waits.increment();
+            LockSupport.parkNanos(WAIT_NANOS);
+            arcs = lists.get(v);
+        }
+        return arcs;
+    }
+
+    @Override
+    public int degree(final int v) {
+        return arcs(v).length;
+    }
+
+    @Override
+    public ArcCursor cursor(final int rotation) {
+        return new Cursor(rotation);
+    }
+
+    // Cursor iterates over a published adjacency list, rotated as Graph.Cursor does.
+    private class Cursor implements ArcCursor {
+        private final int rotation;
+        private int v;
+        private int[] arcs;
+        private int ei;
+
+        Cursor(final int rotation) {
+            this.rotation = rotation;
+        }
+
+        @Override
+        public void start(final int v) {
+            this.v = v;
+            this.arcs = arcs(v);
+            this.ei = 0;
+        }
+
+        @Override
+        public int node() {
+            return this.v;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.ei < this.arcs.length;
+        }
+
+        @Override
+        public int next() {
+            return this.arcs[(this.ei++ + this.rotation) % this.arcs.length];
+        }
+
+        @Override
+        public void save(final IntStack stack) {
+            stack.push(this.v);
+            stack.push(this.ei);
+        }
+
+        @Override
+        public void restore(final IntStack stack) {
+            final int ei = stack.pop();
+            this.start(stack.pop());
+            this.ei = ei;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package tarjanUF;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
 
 import tarjanUF.UFNode.ListStatus;
 import tarjanUF.UFNode.UFStatus;
@@ -10,6 +12,19 @@ public class UF {
 
     private List<UFNode> list;
     public final List<Boolean> visited;
+    // workerCount is the number of workers that the algorithm is supposed to run on.
+    // It decides the size of every worker set.
+    private final int workerCount;
+    // policy decides how a worker waits for a node locked by another worker.
+    private final ContentionPolicy policy;
+    // pickMode decides how `pickFromList` gets past the explored members of a list.
+    private PickMode pickMode;
+    // picks and pickSteps count the calls to `pickFromList` and the list nodes they visited.
+    private final LongAdder picks;
+    private final LongAdder pickSteps;
+    // bottomSink is given the root of every set marked dead without an exit, i.e., every bottom SCC.
+    // null unless exits are tracked.
+    private IntConsumer bottomSink;
 
     // ClaimStatus is used to denote the return value of `makeClaim`
     // where a worker tries to claim rights on a node.
@@ -36,18 +51,103 @@ public class UF {
         pickSuccess, pickDead;
     };
 
+    // PickMode decides how `pickFromList` walks past the listTomb nodes of a list.
+    // It can take the following values:
+    // 1. pairwise:
+    //      Unlink the listTomb nodes met two at a time, waiting on listLock nodes.
+    //      Every pick walks the tombstones left behind by the picks racing with it.
+    // 2. skip:
+    //      Walk the whole run of listTomb nodes after the first one and unlink it with a single
+    //      CAS of its predecessor's listNext, so that the next pick goes straight to a member
+    //      still to be explored. A listLock node is such a member, the worker does not wait.
+    public enum PickMode {
+        pairwise, skip;
+    };
+
     // Constructor.
     // Initializes a list of UFNodes required.
     // Also maintains a boolean list to know which nodes to avoid for DFS root.
-    public UF(int n) {
+    public UF(int n, int workerCount) {
+        this(n, workerCount, new ContentionPolicy());
+    }
+
+    public UF(int n, int workerCount, ContentionPolicy policy) {
+        this.workerCount = workerCount;
+        this.policy = policy;
+        this.pickMode = PickMode.skip;
+        this.picks = new LongAdder();
+        this.pickSteps = new LongAdder();
         this.list = new ArrayList<UFNode>(n);
         this.visited = new ArrayList<Boolean>(n);
-        for (int i = 0; i < n; i++) {
+        this.ensureCapacity(n);
+    }
+
+    // size returns the number of UFNodes currently allocated.
+    public int size() {
+        return this.list.size();
+    }
+
+    public int workerCount() {
+        return this.workerCount;
+    }
+
+    public ContentionPolicy policy() {
+        return this.policy;
+    }
+
+    public void setPickMode(PickMode pickMode) {
+        this.pickMode = pickMode;
+    }
+
+    public PickMode getPickMode() {
+        return this.pickMode;
+    }
+
+    // setBottomSink makes the following runs track the exits of the sets and hand the root of every
+    // bottom SCC to `sink` as soon as it is marked dead (null to stop tracking). `sink` is called by
+    // the worker marking the set dead, possibly with locks held: it should only queue the root.
+    public void setBottomSink(IntConsumer sink) {
+        this.bottomSink = sink;
+    }
+
+    // tracksExits returns true if the workers have to report the exits of their sets to `markExit`.
+    public boolean tracksExits() {
+        return this.bottomSink != null;
+    }
+
+    // getPicks returns the number of calls to `pickFromList` since the last `resetCounters`.
+    public long getPicks() {
+        return this.picks.sum();
+    }
+
+    // getPickSteps returns the number of list nodes visited by `pickFromList` since the last `resetCounters`.
+    public long getPickSteps() {
+        return this.pickSteps.sum();
+    }
+
+    public void resetCounters() {
+        this.picks.reset();
+        this.pickSteps.reset();
+    }
+
+    // ensureCapacity allocates new UFNodes until at least `n` of them are present.
+    // Must not be called while workers are running.
+    public void ensureCapacity(int n) {
+        for (int i = this.list.size(); i < n; i++) {
             this.visited.add(false);
             this.list.add(new UFNode());
         }
     }
 
+    // reset brings the nodes in [from, to) back to their initial state.
+    // Disjoint ranges can be reset concurrently by different threads.
+    public void reset(int from, int to) {
+        for (int i = from; i < to; i++) {
+            this.list.get(i).reset();
+            this.visited.set(i, false);
+        }
+    }
+
     /********* Union find Operations ****************/
 
     // find is used to find the root of the union find tree
@@ -133,6 +233,7 @@ public class UF {
         int ra, rb, la, lb, na, nb;
         int Q, R;
         ConcurrentBitSet workerQ, workerR;
+        int round = 0;
 
         while (true) {
             // Find roots of the union tree.
@@ -154,7 +255,9 @@ public class UF {
             }
 
             // Else try to obtain a lock on the node Q, that is whose parent is to be set.
+            // Back off if some other worker holds it.
             if (!this.lockUF(Q)) {
+                round = this.policy.pause(round);
                 continue;
             }
             break;
@@ -194,17 +297,30 @@ public class UF {
 
         UFNode.parentUpdater.set(this.list.get(Q), R);
 
-        // We also need to merge the worker sets.
-        workerQ = this.list.get(Q).workerSet;
-        workerR = this.list.get(R).workerSet;
+        // An exit of Q is one of the united set. A worker setting it on Q from now on sees the
+        // parent of Q and sets it on R as well (see `markExit`). The lists are still locked so
+        // the set cannot be marked dead before R has it.
+        if (this.list.get(Q).hasExit()) {
+            this.setExit(R);
+        }
 
-        // An iterative version to "or" the two worker sets in case of race conditions.
-        if (!ConcurrentBitSet.equals(ConcurrentBitSet.getOr(workerQ, workerR), workerR)) {
-            this.list.get(R).workerSet.or(workerQ);
-            while (this.list.get(R).parent() != 0) {
-                R = this.find(R);
-                this.list.get(R).workerSet.or(workerQ);
+        // We also need to merge the worker sets. Q has none if it was never claimed.
+        workerQ = this.list.get(Q).workerSet();
+        if (workerQ != null) {
+            workerR = this.workerSetOf(this.list.get(R));
+
+            // An iterative version to "or" the two worker sets in case of race conditions.
+            // Only the words of R missing some worker of Q are written.
+            if (!workerQ.isSubsetOf(workerR)) {
+                workerR.orMissing(workerQ);
+                while (this.list.get(R).parent() != 0) {
+                    R = this.find(R);
+                    this.workerSetOf(this.list.get(R)).orMissing(workerQ);
+                }
             }
+            // Q is no root any more, its worker set is not consulted again. A worker still
+            // claiming Q sees its parent afterwards and claims the new root as well.
+            UFNode.workerSetUpdater.set(this.list.get(Q), null);
         }
 
         // Remove locks from everywhere.
@@ -224,12 +340,75 @@ public class UF {
 
     // pickFromList returns the index of the first live element in the cyclic list
     // of node state. returns -1 if the entire list is dead.
+    // The listTomb nodes met on the way are removed from the list as the PickMode says.
+    public Pair<PickStatus, Integer> pickFromList(int state) {
+        if (this.pickMode == PickMode.pairwise) {
+            return pickPairwise(state);
+        }
+        // `a` is the last node known to be listTomb, the run of listTomb nodes walked after it
+        // is unlinked at once. The walk may start on a node already unlinked by another worker,
+        // which leads back into the list but never to itself: every time `budget` nodes were
+        // walked without a result the run so far is unlinked and `a` moves to its end, with
+        // twice the budget. Once `a` is in the cyclic list a walk of the whole list gets back to it.
+        int a = state;
+        long steps = 1;
+        if (this.list.get(a).listStatus() != ListStatus.listTomb) {
+            countPick(steps);
+            return (new Pair<PickStatus, Integer>(PickStatus.pickSuccess, a));
+        }
+        long budget = 64;
+        while (true) {
+            // The CAS below compares references, hence the very Integer read here.
+            final Integer link = UFNode.listNextUpdater.get(this.list.get(a));
+            final int b = link == 0 ? a : link;
+            int x = b;
+            long walked = 0;
+            while (x != a && walked < budget && this.list.get(x).listStatus() == ListStatus.listTomb) {
+                x = next(x);
+                walked++;
+            }
+            steps += walked + 1;
+            if (x == a) {
+                // Every node of the list is listTomb: the SCC is complete.
+                markDead(a);
+                countPick(steps);
+                return (new Pair<PickStatus, Integer>(PickStatus.pickDead, -1));
+            }
+            // Unlink the listTomb nodes between `a` and `x`. A failed CAS means another worker
+            // unlinked some of them already; the list is fine either way.
+            if (x != b) {
+                UFNode.listNextUpdater.compareAndSet(this.list.get(a), link, x);
+            }
+            if (this.list.get(x).listStatus() != ListStatus.listTomb) {
+                countPick(steps);
+                return (new Pair<PickStatus, Integer>(PickStatus.pickSuccess, x));
+            }
+            // Out of budget on a listTomb node.
+            a = x;
+            budget *= 2;
+        }
+    }
+
+    // next returns the node after "node a" in its list, 0 standing for "node a" itself.
+    private int next(int a) {
+        final int b = this.list.get(a).listNext();
+        return b == 0 ? a : b;
+    }
+
+    // countPick records a pick which visited `steps` list nodes.
+    private void countPick(long steps) {
+        this.picks.increment();
+        this.pickSteps.add(steps);
+    }
+
+    // pickPairwise is `pickFromList` in the pairwise PickMode.
     // Also if a node in the traversal of list is set listTomb then removes it to shorten
     // the length of the list.
-    public Pair<PickStatus, Integer> pickFromList(int state) {
+    private Pair<PickStatus, Integer> pickPairwise(int state) {
         int a, b, c;
-        int ret;
         ListStatus statusA, statusB;
+        int round = 0;
+        long steps = 1;
         a = state;
 
         // This loop will terminate as either the length of list is reduced in each iteration
@@ -240,28 +419,34 @@ public class UF {
                 statusA = this.list.get(a).listStatus();
 
                 if (statusA == ListStatus.listLive) {
+                    countPick(steps);
                     return (new Pair<PickStatus, Integer>(PickStatus.pickSuccess, a));
                 } else if (statusA == ListStatus.listTomb) {
                     break;
                 }
+                round = this.policy.pause(round);
             }
 
             b = this.list.get(a).listNext();
             if (a == b || b == 0) {
                 // Mark the SCC to be dead if a is a listTomb and SCC is dead.
                 markDead(a);
+                countPick(steps);
                 return (new Pair<PickStatus, Integer>(PickStatus.pickDead, -1));
             }
 
             // Loop until state of `b` is not locked.
+            steps++;
             while (true) {
                 statusB = this.list.get(b).listStatus();
 
                 if (statusB == ListStatus.listLive) {
+                    countPick(steps);
                     return (new Pair<PickStatus, Integer>(PickStatus.pickSuccess, b));
                 } else if (statusB == ListStatus.listTomb) {
                     break;
                 }
+                round = this.policy.pause(round);
             }
             // a and b are both listTomb here on.
             c = this.list.get(b).listNext();
@@ -273,12 +458,14 @@ public class UF {
 
             // Now iterate for c to get a listLive element/shorten the list.
             a = c;
+            steps++;
         }
     }
 
     // removeFromList basically marks the "node a" to be a listTomb.
     public boolean removeFromList(int a) {
         ListStatus statusA;
+        int round = 0;
 
         // Loop until this worker changes the "node a" to be a listTomb
         // or is changed by some other node.
@@ -294,16 +481,16 @@ public class UF {
             } else if (statusA == ListStatus.listTomb) {
                 return false;
             }
+            round = this.policy.pause(round);
         }
     }
 
     /*************** Obtain the colour of node *************/
 
     // makeClaim tries to make worker get a claim on nodeId.
+    // The bit of the worker is tested and set in place, no bitmask of the worker is built.
     public ClaimStatus makeClaim(int nodeId, int worker) {
-        ConcurrentBitSet workerId = new ConcurrentBitSet(UFNode.workerCount);
-        // Find the bitmask of the worker.
-        workerId.set(worker - 1, true);
+        final int bit = worker - 1;
         // root contains the latests workerSet of the tree.
         int rootId = this.find(nodeId);
         UFNode root = this.list.get(rootId);
@@ -314,23 +501,86 @@ public class UF {
             return ClaimStatus.claimDead;
         }
 
+        // A root linked under another one meanwhile may have dropped its worker set already,
+        // the worker set to check is that of the new root then.
+        ConcurrentBitSet workers = root.workerSet();
+        while (workers == null && root.parent() != 0) {
+            rootId = this.find(rootId);
+            root = this.list.get(rootId);
+            if (root.ufStatus() == UFStatus.UFdead) {
+                return ClaimStatus.claimDead;
+            }
+            workers = root.workerSet();
+        }
+
         // Check if the root is already present in the worker's tarjanStack.
-        // This can be checked by a simple "and".
-        if (!ConcurrentBitSet.getAnd(root.workerSet, workerId).isEmpty()) {
+        // This can be checked by the bit of the worker. A root without a worker set was never claimed.
+        if (workers != null && workers.get(bit)) {
             return ClaimStatus.claimFound;
         }
 
         // Else worker makes a claim on the node.
-        root.workerSet.or(workerId);
+        this.workerSetOf(root).set(bit);
         // Handle the race conditions, i.e., root of the tree might have changed.
         while (root.parent() != 0) {
             root = this.list.get(this.find(rootId));
-            root.workerSet.or(workerId);
+            final ConcurrentBitSet rootWorkers = this.workerSetOf(root);
+            if (!rootWorkers.get(bit)) {
+                rootWorkers.set(bit);
+            }
         }
         // A successful claim is now obtained.
         return ClaimStatus.claimSuccess;
     }
 
+    // workerSetOf returns the worker set of `root`, allocating it if the root has none yet.
+    // Invariant: only a live root keeps a worker set. `unite` drops the set of Q after giving it
+    // a parent and `markDead` that of the root it kills, so a set allocated meanwhile would be left
+    // behind. The worker allocating it hence checks that `root` is still a live root afterwards and
+    // drops it otherwise: either the set was there before the root changed and `unite`/`markDead`
+    // drops it, or this worker sees the change. The set is returned anyway, the callers move on to
+    // the new root and a dead set needs no claims.
+    private ConcurrentBitSet workerSetOf(UFNode root) {
+        ConcurrentBitSet workers = root.workerSet();
+        while (workers == null) {
+            final ConcurrentBitSet allocated = new ConcurrentBitSet(this.workerCount);
+            if (UFNode.workerSetUpdater.compareAndSet(root, null, allocated)) {
+                if (root.parent() != 0 || root.ufStatus() == UFStatus.UFdead) {
+                    UFNode.workerSetUpdater.compareAndSet(root, allocated, null);
+                }
+                return allocated;
+            }
+            workers = root.workerSet();
+        }
+        return workers;
+    }
+
+    /************** Exits of a set, for bottom SCCs **************/
+
+    // markExit records that an arc leads from the set of "node a" to the dead set of "node w".
+    // Nothing is recorded if they are the same set, which is dead then: its root may have been
+    // handed to the bottom sink already.
+    public void markExit(int a, int w) {
+        int rw = this.find(w);
+        int ra = this.find(a);
+        if (ra == rw) {
+            return;
+        }
+        this.setExit(ra);
+    }
+
+    // setExit sets the exit of the root `r` and of the roots it gets linked under meanwhile,
+    // as makeClaim does for the worker sets.
+    private void setExit(int r) {
+        UFNode root = this.list.get(r);
+        root.setExit();
+        while (root.parent() != 0) {
+            r = this.find(r);
+            root = this.list.get(r);
+            root.setExit();
+        }
+    }
+
     /************** Check whether(or Mark) node is(or as) dead **************/
 
     // isDead returns true if the tree of "node a" is dead.
@@ -339,10 +589,32 @@ public class UF {
         return (this.list.get(ra).ufStatus() == UFStatus.UFdead);
     }
 
+    // isDeadRoot returns true if "node a" is the root of a dead tree.
+    // A dead root stays the root of its tree which does not grow any more.
+    public boolean isDeadRoot(int a) {
+        UFNode node = this.list.get(a);
+        return node.parent() == 0 && node.ufStatus() == UFStatus.UFdead;
+    }
+
+    // restoreDead puts "node a" in the dead tree of `root`, e.g., as saved by a Checkpoint.
+    // "node a" is done with, hence it is a listTomb and visited.
+    // Must not be called while workers are running. Different nodes can be restored concurrently.
+    public void restoreDead(int a, int root) {
+        UFNode node = this.list.get(a);
+        if (a != root) {
+            UFNode.parentUpdater.set(node, root);
+        }
+        UFNode.listNextUpdater.set(node, a);
+        UFNode.listStatusUpdater.set(node, ListStatus.listTomb);
+        UFNode.ufStatusUpdater.set(this.list.get(root), UFStatus.UFdead);
+        this.visited.set(a - 1, true);
+    }
+
     // markDead makes the "ndoe a" UFdead.
     public boolean markDead(int a) {
         // Was this worker successful in making "node a" dead?
         boolean result = false;
+        int round = 0;
         int ra = this.find(a);
         UFStatus stat = this.list.get(ra).ufStatus();
 
@@ -351,6 +623,16 @@ public class UF {
         while (stat != UFStatus.UFdead) {
             if (stat == UFStatus.UFlive) {
                 result = UFNode.ufStatusUpdater.compareAndSet(this.list.get(ra), UFStatus.UFlive, UFStatus.UFdead);
+                if (result) {
+                    // Claims on a dead set stop at its status, its worker set is not needed any more.
+                    UFNode.workerSetUpdater.set(this.list.get(ra), null);
+                    // Every member was explored, hence every exit of the set was recorded.
+                    if (this.bottomSink != null && !this.list.get(ra).hasExit()) {
+                        this.bottomSink.accept(ra);
+                    }
+                }
+            } else {
+                round = this.policy.pause(round);
             }
             stat = this.list.get(ra).ufStatus();
         }
@@ -386,6 +668,7 @@ public class UF {
     public int lockList(int a) {
         PickStatus picked;
         int la;
+        int round = 0;
 
         while (true) {
             Pair<PickStatus, Integer> p = pickFromList(a);
@@ -397,6 +680,7 @@ public class UF {
             if (UFNode.listStatusUpdater.compareAndSet(this.list.get(la), ListStatus.listLive, ListStatus.listLock)) {
                 return la;
             }
+            round = this.policy.pause(round);
         }
     }
 
@@ -4,13 +4,24 @@ import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class UFNode {
 
-    // workerCount is the number of workers that the algorithm is supposed to run on.
-    public static int workerCount;
-
     // workerSet is the bitmask of workers currently have this node on their tarjanStack.
     // A concurrent bitset is required to counter the race conditions. If an non atomic
     // operation is done two workers might read the same value and output will be undefined.
-    public ConcurrentBitSet workerSet;
+    // Only the worker set of a root is ever consulted, hence it is allocated when the root is
+    // first claimed (see UF.workerSetOf) and dropped once the node is linked under another
+    // root or its set is dead, also when it was allocated just as that happened: memory grows
+    // with the live roots rather than with the nodes.
+    // null until then.
+    private volatile ConcurrentBitSet workerSet;
+
+    public ConcurrentBitSet workerSet() {
+        return workerSetUpdater.get(this);
+    }
+
+    // workerSetUpdater is used to do atomic read/write/manipulations on the field workerSet.
+    // Operations are atomic to this instance of UFNode.
+    public static final AtomicReferenceFieldUpdater<UFNode, ConcurrentBitSet> workerSetUpdater =
+        AtomicReferenceFieldUpdater.newUpdater(UFNode.class, ConcurrentBitSet.class, "workerSet");
 
     // parent denotes the parent of a node in the union find tree.
     private volatile Integer parent;
@@ -93,13 +104,33 @@ public class UFNode {
     public static final AtomicReferenceFieldUpdater<UFNode, ListStatus> listStatusUpdater =
         AtomicReferenceFieldUpdater.newUpdater(UFNode.class, ListStatus.class, "listStatus");
 
+    // exit is set on a root once an arc from its set to another, dead, set was explored, which
+    // rules the set out as a bottom SCC (see UF.markExit). Only tracked if asked, and it only ever
+    // goes from false to true, hence plain volatile writes suffice.
+    private volatile boolean exit;
+
+    public boolean hasExit() {
+        return this.exit;
+    }
+
+    public void setExit() {
+        this.exit = true;
+    }
+
     // Constructor.
     public UFNode() {
-        this.workerSet = new ConcurrentBitSet(UFNode.workerCount);
+        this.reset();
+    }
+
+    // reset brings the node back to its initial state so that it can be reused
+    // for another run without reallocation. Must not be called while workers are running.
+    public void reset() {
+        UFNode.workerSetUpdater.set(this, null);
         UFNode.parentUpdater.set(this, 0);
         UFNode.listNextUpdater.set(this, 0);
         // Initially every node is live.
         UFNode.ufStatusUpdater.set(this, UFStatus.UFlive);
         UFNode.listStatusUpdater.set(this, ListStatus.listLive);
+        this.exit = false;
     }
 }
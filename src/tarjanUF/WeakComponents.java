@@ -0,0 +1,137 @@
+package tarjanUF;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// WeakComponents splits a graph into its weakly connected components (pieces), i.e., the
+// components of the graph with the direction of the arcs ignored. No arc goes from a piece
+// to another one, hence the SCCs of the pieces can be searched independently.
+// The pieces are found with a concurrent union find over the arcs: a link always hangs the
+// larger root under the smaller one with a single CAS, so the root of a piece ends up being
+// its smallest node. Pieces are numbered [0..count() - 1] in the order of their smallest node.
+public class WeakComponents {
+
+    // piece[v] is the piece of node `v`.
+    private final int[] piece;
+    // The nodes of piece `p` are members[begin[p]..begin[p + 1]), in increasing order.
+    private final int[] begin;
+    private final int[] members;
+
+    private WeakComponents(final int[] piece, final int[] begin, final int[] members) {
+        this.piece = piece;
+        this.begin = begin;
+        this.members = members;
+    }
+
+    // compute finds the pieces of `graph` in parallel on the threads of `engine`.
+    public static WeakComponents compute(final Digraph graph, final SccEngine engine) {
+        final long start = System.nanoTime();
+
+        final int n = graph.N();
+        final AtomicIntegerArray parent = new AtomicIntegerArray(n);
+        engine.forEachRange(n, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                parent.set(v, v);
+            }
+        });
+        engine.forEachRange(n, (from, to) -> {
+            final ArcCursor cursor = graph.cursor(0);
+            for (int v = from; v < to; v++) {
+                cursor.start(v);
+                while (cursor.hasNext()) {
+                    union(parent, v, cursor.next());
+                }
+            }
+        });
+
+        // Every node points to its root afterwards, hence roots are the nodes with piece[v] == v.
+        final int[] piece = new int[n];
+        engine.forEachRange(n, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                piece[v] = find(parent, v);
+            }
+        });
+
+        // Number the pieces and group their nodes with a counting sort.
+        final int[] number = new int[n];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            if (piece[v] == v) {
+                number[v] = count++;
+            }
+        }
+        final int[] begin = new int[count + 1];
+        for (int v = 0; v < n; v++) {
+            piece[v] = number[piece[v]];
+            begin[piece[v] + 1]++;
+        }
+        for (int p = 0; p < count; p++) {
+            begin[p + 1] += begin[p];
+        }
+        final int[] members = new int[n];
+        final int[] fill = number;
+        System.arraycopy(begin, 0, fill, 0, count);
+        for (int v = 0; v < n; v++) {
+            members[fill[piece[v]]++] = v;
+        }
+
+        final long duration = System.nanoTime() - start;
+        System.err.println("Weakly connected components: " + count + ".");
+        System.err.println("Runtime for weakly connected components: " + duration);
+        return new WeakComponents(piece, begin, members);
+    }
+
+    // find returns the root of `v`, halving the path on the way.
+    private static int find(final AtomicIntegerArray parent, int v) {
+        int p = parent.get(v);
+        while (p != v) {
+            final int grand = parent.get(p);
+            if (grand != p) {
+                // Fails harmlessly if another thread changed parent[v] in the meantime.
+                parent.compareAndSet(v, p, grand);
+            }
+            v = p;
+            p = grand;
+        }
+        return v;
+    }
+
+    // union merges the sets of `a` and `b`. The larger root is hung under the smaller one;
+    // the CAS fails if that root was linked by another thread meanwhile, then we retry.
+    private static void union(final AtomicIntegerArray parent, int a, int b) {
+        while (true) {
+            a = find(parent, a);
+            b = find(parent, b);
+            if (a == b) {
+                return;
+            }
+            if (a < b) {
+                final int t = a;
+                a = b;
+                b = t;
+            }
+            if (parent.compareAndSet(a, a, b)) {
+                return;
+            }
+        }
+    }
+
+    // count returns the number of pieces.
+    public int count() {
+        return begin.length - 1;
+    }
+
+    public int piece(final int v) {
+        return piece[v];
+    }
+
+    public int size(final int p) {
+        return begin[p + 1] - begin[p];
+    }
+
+    // members returns the nodes of piece `p` in increasing order.
+    public int[] members(final int p) {
+        final int[] result = new int[size(p)];
+        System.arraycopy(members, begin[p], result, 0, result.length);
+        return result;
+    }
+}
@@ -0,0 +1,68 @@
+package tarjanUF;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// WorkBoard lets the workers that are done with their roots join the sets other workers are
+// still exploring, instead of waiting for them. Every busy worker publishes the last node its
+// DFS went to; an idle worker starts a DFS of its own from such a node if its set is not dead.
+// Its claim on the set succeeds (the set is not on its stack), and `pickFromList` then hands
+// it the live members of the set, which it explores with its own rotation of the arcs, as the
+// workers started from the same init node do. A giant SCC or a hub node is thus worked on by
+// every thread rather than by the worker that happened to reach it first.
+// A joined node lies on the DFS of the worker which published it, hence a joining worker that
+// is stopped can give up its run: the node is searched again with the root of that DFS.
+public class WorkBoard {
+
+    // Slots are this many ints apart so that workers do not write to the same cache line.
+    private static final int STRIDE = 16;
+
+    // node[(w - 1) * STRIDE] is the last node published by worker `w`, -1 if it is idle.
+    private final AtomicIntegerArray node;
+    private final int numWorkers;
+    // busy is the number of workers running a DFS.
+    private final AtomicInteger busy;
+
+    // Constructor.
+    public WorkBoard(final int numWorkers) {
+        this.numWorkers = numWorkers;
+        this.node = new AtomicIntegerArray(numWorkers * STRIDE);
+        for (int w = 0; w < numWorkers; w++) {
+            this.node.set(w * STRIDE, -1);
+        }
+        this.busy = new AtomicInteger(0);
+    }
+
+    // publish makes `v` the node worker `workerId` is exploring, -1 when it is done.
+    // The store is not a fence, a joining worker seeing an older node is fine.
+    public void publish(final int workerId, final int v) {
+        node.lazySet((workerId - 1) * STRIDE, v);
+    }
+
+    // enter and leave bracket a DFS of a worker.
+    public void enter() {
+        busy.incrementAndGet();
+    }
+
+    public void leave() {
+        busy.decrementAndGet();
+    }
+
+    // isBusy returns true if some worker is running a DFS.
+    public boolean isBusy() {
+        return busy.get() > 0;
+    }
+
+    // pick returns a node published by another worker than `workerId` whose set is not dead,
+    // trying the workers after it first. Returns -1 if there is none.
+    public int pick(final int workerId, final UF uf) {
+        for (int i = 1; i < numWorkers; i++) {
+            final int w = (workerId - 1 + i) % numWorkers;
+            final int v = node.get(w * STRIDE);
+            if (v != -1 && !uf.isDead(v + 1)) {
+                return v;
+            }
+        }
+        return -1;
+    }
+}